@@ -25,5 +25,22 @@ application {
 }
 
 tasks.test {
-    useJUnitPlatform()
-}
\ No newline at end of file
+    useJUnitPlatform {
+        excludeTags("slow")
+    }
+}
+
+// multi-seed equivalence checks of the model options, solved to optimality
+tasks.register<Test>("slowTest") {
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("slow")
+    }
+}
+
+// gradle benchmark -Pbenchmark=NetworkBenchmark
+tasks.register<JavaExec>("benchmark") {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set(providers.gradleProperty("benchmark").map { "tech.vineyard.irrigation.benchmark.$it" })
+}
@@ -1,6 +1,7 @@
 import tech.vineyard.irrigation.CellType;
 import tech.vineyard.irrigation.Input;
 import tech.vineyard.irrigation.Service;
+import tech.vineyard.irrigation.optimization.SolverConfig;
 
 import java.io.BufferedReader;
 import java.io.FileInputStream;
@@ -31,8 +32,15 @@ public class Irrigation {
             }
         }
 
+        // optional wall clock budget in seconds and number of workers
+        double timeLimit = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        SolverConfig solverConfig = SolverConfig.DEFAULT
+                .withTimeLimit(timeLimit)
+                .withWorkers(workers);
+
         Input input = new Input(N, C, P, T, Z, cellTypes);
-        Service service = new Service(input);
+        Service service = new Service(input, solverConfig);
         service.outputSolution();
     }
 }
@@ -0,0 +1,93 @@
+package tech.vineyard.irrigation;
+
+import tech.vineyard.irrigation.optimization.SolutionListener;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Answer file, atomically rewritten on each improvement so that it always holds a complete solution.
+ * <p>
+ * A failed write of an improvement is logged and skipped, so that the search goes on,
+ * and reported with the failure of the final write.
+ */
+public class AnswerFile implements SolutionListener {
+
+    private final Path path;
+    private final Path temporaryPath;
+
+    /**
+     * last failed write of an improvement
+     */
+    private IOException skipped;
+
+    public AnswerFile(Path path) {
+        this.path = path;
+        this.temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    @Override
+    public synchronized void onSolution(Output output, double wallTime) {
+        try {
+            write(output);
+        } catch (IOException e) {
+            log(String.format("Skipped writing the solution of cost %d: %s", output.cost(), e));
+            skipped = e;
+        }
+    }
+
+    public synchronized void write(Output output) throws IOException {
+        try {
+            try (PrintWriter printWriter = new PrintWriter(Files.newBufferedWriter(temporaryPath))) {
+                print(printWriter, output);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (skipped != null && skipped != e) {
+                e.addSuppressed(skipped);
+            }
+            throw e;
+        }
+    }
+
+    private void print(PrintWriter printWriter, Output output) {
+        boolean[][] pipes = output.pipes();
+        boolean[][] sprinklers = output.sprinklers();
+
+        int p = count(pipes);
+        int s = count(sprinklers);
+        int K = p + s;
+
+        printWriter.println(K);
+        IntStream.range(0, pipes.length)
+                .forEach(i -> IntStream.range(0, pipes[i].length)
+                        .filter(j -> pipes[i][j])
+                        .forEach(j -> printWriter.println(String.format("P %d %d %d %d", i, j, i, j))));
+
+        IntStream.range(0, sprinklers.length)
+                .forEach(i -> IntStream.range(0, sprinklers[i].length)
+                        .filter(j -> sprinklers[i][j])
+                        .forEach(j -> printWriter.println(String.format("S %d %d", i, j))));
+    }
+
+    private int count(boolean[][] b) {
+        return Arrays.stream(b)
+                .mapToInt(this::count)
+                .sum();
+    }
+
+    private int count(boolean[] b) {
+        return (int) IntStream.range(0, b.length)
+                .filter(i -> b[i])
+                .count();
+    }
+
+    private void log(String message) {
+        System.err.println(message);
+    }
+}
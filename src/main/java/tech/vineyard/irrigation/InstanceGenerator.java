@@ -0,0 +1,101 @@
+package tech.vineyard.irrigation;
+
+import java.util.Random;
+
+/**
+ * Random instances, generated like the Topcoder tester: plants with density D, S water sources,
+ * plants that can not be irrigated are removed.
+ */
+public class InstanceGenerator {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Random random;
+
+    public InstanceGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * Instance with random costs in the tester ranges.
+     */
+    public Input generate(int N, double D) {
+        int S = randomInt(1, 5);
+        int C = randomInt(1, 30);
+        int P = randomInt(1, 30);
+        int T = randomInt(30, 90);
+        int Z = randomInt(1, 4);
+        return generate(N, S, C, P, T, Z, D);
+    }
+
+    public Input generate(int N, int S, int C, int P, int T, int Z, double D) {
+        CellType[][] cellTypes = new CellType[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                cellTypes[i][j] = random.nextDouble() < D ? CellType.PLANT : CellType.EMPTY;
+            }
+        }
+
+        for (int s = 0; s < S; ) {
+            int i = random.nextInt(N);
+            int j = random.nextInt(N);
+            if (cellTypes[i][j] != CellType.SOURCE) {
+                cellTypes[i][j] = CellType.SOURCE;
+                s++;
+            }
+        }
+
+        removeDryPlants(cellTypes, N, Z);
+        return new Input(N, C, P, T, Z, cellTypes);
+    }
+
+    private void removeDryPlants(CellType[][] cellTypes, int N, int Z) {
+        boolean[][] reachable = new boolean[N][N];
+        boolean[][] wet = new boolean[N][N];
+
+        int[] queue = new int[N*N];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cellTypes[i][j] == CellType.SOURCE) {
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int[] offset : OFFSETS) {
+                int i = cell / N + offset[0];
+                int j = cell % N + offset[1];
+                if (0 <= i && i < N && 0 <= j && j < N && cellTypes[i][j] == CellType.EMPTY && !reachable[i][j]) {
+                    reachable[i][j] = true;
+                    queue[tail++] = i*N + j;
+                    for (int di = -Z; di <= Z; di++) {
+                        for (int dj = -Z; dj <= Z; dj++) {
+                            if (0 <= i + di && i + di < N && 0 <= j + dj && j + dj < N && di*di + dj*dj <= Z*Z) {
+                                wet[i + di][j + dj] = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cellTypes[i][j] == CellType.PLANT && !wet[i][j]) {
+                    cellTypes[i][j] = CellType.EMPTY;
+                }
+            }
+        }
+    }
+
+    private int randomInt(int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+}
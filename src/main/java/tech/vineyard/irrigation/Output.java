@@ -6,9 +6,24 @@ public class Output {
 
     private final boolean[][] sprinklers;
 
-    public Output(boolean[][] pipes, boolean[][] sprinklers) {
+    private final SolutionStatus status;
+
+    /**
+     * cost of the solution
+     */
+    private final long cost;
+
+    /**
+     * lower bound on the optimal cost
+     */
+    private final long bound;
+
+    public Output(boolean[][] pipes, boolean[][] sprinklers, SolutionStatus status, long cost, long bound) {
         this.pipes = pipes;
         this.sprinklers = sprinklers;
+        this.status = status;
+        this.cost = cost;
+        this.bound = bound;
     }
 
     public boolean[][] pipes() {
@@ -18,4 +33,27 @@ public class Output {
     public boolean[][] sprinklers() {
         return sprinklers;
     }
+
+    public SolutionStatus status() {
+        return status;
+    }
+
+    public long cost() {
+        return cost;
+    }
+
+    public long bound() {
+        return bound;
+    }
+
+    /**
+     * Relative optimality gap, 0 when the solution is proven optimal.
+     */
+    public double gap() {
+        if (cost == 0) {
+            return 0;
+        }
+
+        return (double) (cost - bound) / cost;
+    }
 }
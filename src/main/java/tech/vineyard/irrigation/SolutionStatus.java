@@ -0,0 +1,13 @@
+package tech.vineyard.irrigation;
+
+public enum SolutionStatus {
+    /**
+     * Proven optimal
+     */
+    OPTIMAL,
+
+    /**
+     * Best solution found before the time limit, optimality not proven
+     */
+    FEASIBLE
+}
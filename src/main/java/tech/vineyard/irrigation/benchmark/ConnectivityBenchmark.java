@@ -0,0 +1,50 @@
+package tech.vineyard.irrigation.benchmark;
+
+import com.google.ortools.sat.CpModelProto;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.Connectivity;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolveReport;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import java.io.IOException;
+
+/**
+ * Flow versus arborescence connectivity, head to head on grids of increasing size.
+ * Large grids hit the time limit, compare their cost and bound.
+ */
+public class ConnectivityBenchmark {
+
+    private static final int[] SIZES = { 8, 12, 20, 30, 50 };
+    private static final int SEEDS = 2;
+    private static final double D = 0.2;
+    private static final double TIME_LIMIT = 20;
+
+    public static void main(String[] args) throws IOException {
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT);
+
+        System.out.println(String.format("%4s %5s %13s %10s %12s %9s %9s %10s %9s",
+                "N", "seed", "connectivity", "variables", "constraints", "cost", "bound", "time (s)", "status"));
+        for (int N : SIZES) {
+            for (int seed = 1; seed <= SEEDS; seed++) {
+                Input input = new InstanceGenerator(seed).generate(N, D);
+                for (Connectivity connectivity : Connectivity.values()) {
+                    run(N, seed, input, solverConfig, ModelConfig.DEFAULT.withConnectivity(connectivity));
+                }
+            }
+        }
+    }
+
+    private static void run(int N, int seed, Input input, SolverConfig solverConfig, ModelConfig modelConfig) throws IOException {
+        Optimizer optimizer = new Optimizer(input, solverConfig, modelConfig);
+        Output output = optimizer.solution();
+        CpModelProto model = optimizer.model().model();
+        SolveReport report = optimizer.report();
+        System.out.println(String.format("%4d %5d %13s %10d %12d %9d %9d %10.3f %9s",
+                N, seed, modelConfig.connectivity(), model.getVariablesCount(), model.getConstraintsCount(),
+                output.cost(), output.bound(), report.wallTime(), output.status()));
+    }
+}
@@ -0,0 +1,57 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.CostScenario;
+import tech.vineyard.irrigation.optimization.CostSweep;
+import tech.vineyard.irrigation.optimization.CostTable;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cost table of a sweep over the pipe and sprinkler costs, against a full run of the optimizer per scenario,
+ * with the total time of each.
+ */
+public class CostSweepBenchmark {
+
+    private static final int N = 10;
+    private static final double D = 0.2;
+    private static final int C = 1;
+    private static final int[] PIPE_COSTS = new int[] { 1, 2, 3 };
+    private static final int[] SPRINKLER_COSTS = new int[] { 5, 10, 20 };
+    private static final double TIME_LIMIT = 10;
+
+    public static void main(String[] args) throws IOException {
+        Input input = new InstanceGenerator(N).generate(N, D);
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT).withWorkers(1);
+
+        List<CostScenario> scenarios = new ArrayList<>();
+        for (int P : PIPE_COSTS) {
+            for (int T : SPRINKLER_COSTS) {
+                scenarios.add(new CostScenario(C, P, T));
+            }
+        }
+
+        long start = System.nanoTime();
+        CostTable swept = new CostSweep(input, solverConfig, ModelConfig.DEFAULT, Runtime.getRuntime().availableProcessors()).costTable(scenarios);
+        double sweepTime = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%5s %5s %5s %12s %12s", "C", "P", "T", "sweep", "full runs"));
+        start = System.nanoTime();
+        for (int k = 0; k < scenarios.size(); k++) {
+            CostScenario scenario = scenarios.get(k);
+            Input costs = new Input(N, scenario.C(), scenario.P(), scenario.T(), input.Z(), input.cells());
+            Output full = new Optimizer(costs, solverConfig).solution();
+            System.out.println(String.format("%5d %5d %5d %12d %12d", scenario.C(), scenario.P(), scenario.T(),
+                    swept.output(k).cost(), full.cost()));
+        }
+        double fullTime = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("sweep %.3fs, full runs %.3fs", sweepTime, fullTime));
+    }
+}
@@ -0,0 +1,62 @@
+package tech.vineyard.irrigation.benchmark;
+
+import com.google.ortools.sat.CpModelProto;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolveReport;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import java.io.IOException;
+
+/**
+ * Plant flows versus set cover coverage: model size versus spray radius, then time to optimal on a seed corpus.
+ */
+public class CoverageBenchmark {
+
+    private static final int SIZE_N = 30;
+    private static final double SIZE_D = 0.3;
+    private static final int SEEDS = 6;
+    private static final int N = 8;
+    private static final double D = 0.2;
+    private static final double TIME_LIMIT = 60;
+
+    public static void main(String[] args) throws IOException {
+        ModelConfig flow = ModelConfig.DEFAULT;
+        ModelConfig setCover = ModelConfig.DEFAULT.withSetCover(true);
+
+        System.out.println(String.format("%3s %12s %14s %12s %14s", "Z", "variables", "constraints", "set cover", "constraints"));
+        for (int Z = 1; Z <= 4; Z++) {
+            Input input = new InstanceGenerator(Z).generate(SIZE_N, 3, 10, 10, 50, Z, SIZE_D);
+            CpModelProto flowModel = new Optimizer(input, SolverConfig.DEFAULT, flow).model().model();
+            CpModelProto setCoverModel = new Optimizer(input, SolverConfig.DEFAULT, setCover).model().model();
+            System.out.println(String.format("%3d %12d %14d %12d %14d", Z,
+                    flowModel.getVariablesCount(), flowModel.getConstraintsCount(),
+                    setCoverModel.getVariablesCount(), setCoverModel.getConstraintsCount()));
+        }
+
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT);
+        System.out.println(String.format("%5s %10s %9s %10s %9s", "seed", "coverage", "cost", "time (s)", "status"));
+        for (int seed = 1; seed <= SEEDS; seed++) {
+            Input input = new InstanceGenerator(seed).generate(N, D);
+            Output flowOutput = run(seed, "flow", input, solverConfig, flow);
+            Output setCoverOutput = run(seed, "set cover", input, solverConfig, setCover);
+            if (flowOutput.status() == SolutionStatus.OPTIMAL && setCoverOutput.status() == SolutionStatus.OPTIMAL
+                    && flowOutput.cost() != setCoverOutput.cost()) {
+                throw new IllegalStateException(String.format("Seed %d: flow cost %d, set cover cost %d",
+                        seed, flowOutput.cost(), setCoverOutput.cost()));
+            }
+        }
+    }
+
+    private static Output run(int seed, String name, Input input, SolverConfig solverConfig, ModelConfig modelConfig) throws IOException {
+        Optimizer optimizer = new Optimizer(input, solverConfig, modelConfig);
+        Output output = optimizer.solution();
+        SolveReport report = optimizer.report();
+        System.out.println(String.format("%5d %10s %9d %10.3f %9s", seed, name, output.cost(), report.wallTime(), output.status()));
+        return output;
+    }
+}
@@ -0,0 +1,54 @@
+package tech.vineyard.irrigation.benchmark;
+
+import com.google.ortools.sat.CpModelProto;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolveReport;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import java.io.IOException;
+
+/**
+ * Model size, propagations and time to optimal of the arc and compact flow formulations, on a seed corpus.
+ */
+public class FlowBenchmark {
+
+    private static final int SEEDS = 10;
+    private static final int N = 8;
+    private static final double D = 0.2;
+    private static final double TIME_LIMIT = 60;
+
+    public static void main(String[] args) throws IOException {
+        ModelConfig arc = ModelConfig.DEFAULT;
+        ModelConfig compact = ModelConfig.DEFAULT.withCompactFlow(true);
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT);
+
+        System.out.println(String.format("%5s %8s %10s %12s %14s %10s %10s %9s",
+                "seed", "flow", "variables", "constraints", "propagations", "conflicts", "time (s)", "status"));
+        for (int seed = 1; seed <= SEEDS; seed++) {
+            Input input = new InstanceGenerator(seed).generate(N, D);
+            Output arcOutput = run(seed, "arc", input, solverConfig, arc);
+            Output compactOutput = run(seed, "compact", input, solverConfig, compact);
+            if (arcOutput.status() == SolutionStatus.OPTIMAL && compactOutput.status() == SolutionStatus.OPTIMAL
+                    && arcOutput.cost() != compactOutput.cost()) {
+                throw new IllegalStateException(String.format("Seed %d: arc cost %d, compact cost %d",
+                        seed, arcOutput.cost(), compactOutput.cost()));
+            }
+        }
+    }
+
+    private static Output run(int seed, String name, Input input, SolverConfig solverConfig, ModelConfig modelConfig) throws IOException {
+        Optimizer optimizer = new Optimizer(input, solverConfig, modelConfig);
+        Output output = optimizer.solution();
+        CpModelProto model = optimizer.model().model();
+        SolveReport report = optimizer.report();
+        System.out.println(String.format("%5d %8s %10d %12d %14d %10d %10.3f %9s",
+                seed, name, model.getVariablesCount(), model.getConstraintsCount(),
+                report.propagations(), report.conflicts(), report.wallTime(), output.status()));
+        return output;
+    }
+}
@@ -0,0 +1,43 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.HierarchicalSolver;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.TwoStageSolver;
+
+/**
+ * Cost, time and memory of the hierarchical solver against the two stage solver, versus grid size.
+ */
+public class HierarchicalBenchmark {
+
+    private static final int[] SIZES = new int[] { 50, 100, 200 };
+    private static final double D = 0.2;
+    private static final int BLOCK_SIZE = 10;
+    private static final double BLOCK_TIME_LIMIT = 1;
+    private static final double TIME_LIMIT = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println(String.format("%5s %12s %14s %12s %16s %12s", "N", "two stage", "two stage (s)", "hierarchical", "hierarchical (s)", "memory (MB)"));
+        for (int N : SIZES) {
+            Input input = new InstanceGenerator(N).generate(N, D);
+
+            long start = System.nanoTime();
+            Output twoStage = new TwoStageSolver(input, SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT), ModelConfig.DEFAULT).solution();
+            double twoStageTime = (System.nanoTime() - start) / 1e9;
+
+            System.gc();
+            start = System.nanoTime();
+            Output hierarchical = new HierarchicalSolver(input, SolverConfig.DEFAULT.withTimeLimit(BLOCK_TIME_LIMIT), ModelConfig.DEFAULT, BLOCK_SIZE)
+                    .solution();
+            double hierarchicalTime = (System.nanoTime() - start) / 1e9;
+            Runtime runtime = Runtime.getRuntime();
+            long memory = (runtime.totalMemory() - runtime.freeMemory()) / (1 << 20);
+
+            System.out.println(String.format("%5d %12d %14.3f %12d %16.3f %12d", N, twoStage.cost(), twoStageTime,
+                    hierarchical.cost(), hierarchicalTime, memory));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.heuristic.LocalSearch;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+
+import java.io.IOException;
+
+/**
+ * Cost of the Steiner heuristic, the local search and CP-SAT under the same time limit, versus grid size.
+ * CP-SAT is skipped on the grids too large for its model, and reports none when it finds no solution in time.
+ */
+public class LocalSearchBenchmark {
+
+    private static final int[] SIZES = new int[] { 10, 20, 50, 100, 200 };
+    private static final int MAX_CP_SIZE = 50;
+    private static final double D = 0.2;
+    private static final double[] TIME_LIMITS = new double[] { 0.05, 1 };
+
+    public static void main(String[] args) throws IOException {
+        System.out.println(String.format("%5s %10s %12s %14s %12s", "N", "limit (s)", "steiner", "local search", "cp-sat"));
+        for (int N : SIZES) {
+            Input input = new InstanceGenerator(N).generate(N, D);
+            long steiner = new SteinerHeuristic(input).solution().cost();
+            for (double timeLimit : TIME_LIMITS) {
+                long localSearch = new LocalSearch(input, timeLimit, 1).solution().cost();
+                String cpSat = "-";
+                if (N <= MAX_CP_SIZE) {
+                    try {
+                        Output output = new Optimizer(input, SolverConfig.DEFAULT.withTimeLimit(timeLimit)).solution();
+                        cpSat = Long.toString(output.cost());
+                    } catch (RuntimeException e) {
+                        cpSat = "none";
+                    }
+                }
+                System.out.println(String.format("%5d %10.2f %12d %14d %12s", N, timeLimit, steiner, localSearch, cpSat));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+/**
+ * Model construction time versus grid size, with and without variable names.
+ */
+public class ModelBenchmark {
+
+    private static final int[] SIZES = { 25, 50, 100, 200 };
+    private static final double D = 0.15;
+    private static final int Z = 4;
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) {
+        ModelConfig lean = ModelConfig.DEFAULT;
+        ModelConfig named = ModelConfig.DEFAULT.withNamedVariables(true);
+
+        System.out.println(String.format("%5s %12s %12s %12s", "N", "variables", "lean (ms)", "named (ms)"));
+        for (int N : SIZES) {
+            Input input = new InstanceGenerator(N).generate(N, 5, 1, 1, 30, Z, D);
+
+            int variables = build(input, lean);
+            build(input, named);
+
+            double leanMillis = time(input, lean);
+            double namedMillis = time(input, named);
+
+            System.out.println(String.format("%5d %12d %12.2f %12.2f", N, variables, leanMillis, namedMillis));
+        }
+    }
+
+    private static int build(Input input, ModelConfig modelConfig) {
+        return new Optimizer(input, SolverConfig.DEFAULT, modelConfig)
+                .model()
+                .model()
+                .getVariablesCount();
+    }
+
+    private static double time(Input input, ModelConfig modelConfig) {
+        long start = System.nanoTime();
+        for (int r = 0; r < REPETITIONS; r++) {
+            build(input, modelConfig);
+        }
+        return (System.nanoTime() - start) / 1e6 / REPETITIONS;
+    }
+}
@@ -0,0 +1,37 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.optimization.model.Network;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
+
+/**
+ * Network build time versus grid size and plant density.
+ */
+public class NetworkBenchmark {
+
+    private static final int[] SIZES = { 25, 50, 100, 200, 400 };
+    private static final double[] DENSITIES = { 0.05, 0.15, 0.3 };
+    private static final int Z = 4;
+    private static final int REPETITIONS = 10;
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%5s %8s %12s %12s", "N", "D", "plant arcs", "build (ms)"));
+        for (int N : SIZES) {
+            for (double D : DENSITIES) {
+                Input input = new InstanceGenerator(N).generate(N, 5, 1, 1, 30, Z, D);
+
+                // warm up
+                Network network = new NetworkBuilder(input).build();
+
+                long start = System.nanoTime();
+                for (int r = 0; r < REPETITIONS; r++) {
+                    network = new NetworkBuilder(input).build();
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / REPETITIONS;
+
+                System.out.println(String.format("%5d %8.2f %12d %12.2f", N, D, network.plantArcs(), millis));
+            }
+        }
+    }
+}
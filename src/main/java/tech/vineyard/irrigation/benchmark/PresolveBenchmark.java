@@ -0,0 +1,35 @@
+package tech.vineyard.irrigation.benchmark;
+
+import com.google.ortools.sat.CpModelProto;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+/**
+ * Model size with and without the reachability presolve, versus plant density.
+ */
+public class PresolveBenchmark {
+
+    private static final int N = 50;
+    private static final double[] DENSITIES = { 0.02, 0.05, 0.1, 0.2, 0.4 };
+    private static final int S = 3;
+    private static final int Z = 2;
+
+    public static void main(String[] args) {
+        ModelConfig full = ModelConfig.DEFAULT.withReachabilityPresolve(false);
+        ModelConfig presolved = ModelConfig.DEFAULT;
+
+        System.out.println(String.format("%6s %12s %14s %12s %14s",
+                "D", "variables", "constraints", "presolved", "constraints"));
+        for (double D : DENSITIES) {
+            Input input = new InstanceGenerator(N).generate(N, S, 1, 1, 30, Z, D);
+            CpModelProto fullModel = new Optimizer(input, SolverConfig.DEFAULT, full).model().model();
+            CpModelProto presolvedModel = new Optimizer(input, SolverConfig.DEFAULT, presolved).model().model();
+            System.out.println(String.format("%6.2f %12d %14d %12d %14d", D,
+                    fullModel.getVariablesCount(), fullModel.getConstraintsCount(),
+                    presolvedModel.getVariablesCount(), presolvedModel.getConstraintsCount()));
+        }
+    }
+}
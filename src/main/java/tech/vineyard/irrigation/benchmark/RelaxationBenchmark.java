@@ -0,0 +1,46 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.LinearRelaxation;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.model.Network;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+
+import java.io.IOException;
+
+/**
+ * Bound and time of the LP relaxation, against the cost, bound and time of CP-SAT, versus grid size.
+ */
+public class RelaxationBenchmark {
+
+    private static final int[] SIZES = new int[] { 8, 12, 20, 30, 50 };
+    private static final double D = 0.2;
+    private static final double TIME_LIMIT = 20;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println(String.format("%5s %10s %10s %10s %10s %10s %10s",
+                "N", "lp bound", "lp (s)", "cp cost", "cp bound", "cp (s)", "lp gap"));
+        for (int N : SIZES) {
+            Input input = new InstanceGenerator(N).generate(N, D);
+            Network network = new NetworkBuilder(input, new SprinklerPresolve(input, false).candidates()).build();
+            LinearRelaxation linearRelaxation = new LinearRelaxation(input, network);
+            long bound = linearRelaxation.bound();
+
+            Optimizer optimizer = new Optimizer(input, SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT));
+            try {
+                Output output = optimizer.solution();
+                System.out.println(String.format("%5d %10d %10.3f %10d %10d %10.3f %9.2f%%",
+                        N, bound, linearRelaxation.wallTime(), output.cost(), output.bound(), optimizer.report().wallTime(),
+                        100.0 * (output.cost() - bound) / output.cost()));
+            } catch (RuntimeException e) {
+                // no solution in time
+                System.out.println(String.format("%5d %10d %10.3f %10s %10s %10.3f %10s",
+                        N, bound, linearRelaxation.wallTime(), "-", "-", optimizer.report().wallTime(), "-"));
+            }
+        }
+    }
+}
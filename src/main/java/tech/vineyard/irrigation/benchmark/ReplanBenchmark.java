@@ -0,0 +1,74 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.Replanner;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.heuristic.LocalSearch;
+
+import java.io.IOException;
+
+/**
+ * Cost and time of re-planning a single new plant on a local search solution, against a cold solve of the edited grid,
+ * versus grid size. The cold solve reports none when it finds no solution in time.
+ */
+public class ReplanBenchmark {
+
+    private static final int[] SIZES = new int[] { 8, 16, 24, 32 };
+    private static final double D = 0.2;
+    private static final double TIME_LIMIT = 10;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println(String.format("%5s %12s %12s %12s %12s", "N", "replan", "replan (s)", "cold", "cold (s)"));
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT);
+        for (int N : SIZES) {
+            Input input = new InstanceGenerator(N).generate(N, D);
+            Output output = new LocalSearch(input, 1, 1).solution();
+            Replanner replanner = new Replanner(input, output, solverConfig, ModelConfig.DEFAULT);
+
+            Input edited = plant(input, output);
+            long start = System.nanoTime();
+            Output replanned = replanner.replan(edited);
+            double replanTime = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            String cold;
+            try {
+                cold = Long.toString(new Optimizer(edited, solverConfig).solution().cost());
+            } catch (RuntimeException e) {
+                cold = "none";
+            }
+            double coldTime = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%5d %12d %12.3f %12s %12.3f", N, replanned.cost(), replanTime, cold, coldTime));
+        }
+    }
+
+    /**
+     * Plant on the empty cell without pipe closest to the center of the grid.
+     */
+    private static Input plant(Input input, Output output) {
+        int N = input.N();
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                int distance = Math.abs(2*i - N) + Math.abs(2*j - N);
+                if (input.cells()[i][j] == CellType.EMPTY && !output.pipes()[i][j] && distance < bestDistance) {
+                    best = i*N + j;
+                    bestDistance = distance;
+                }
+            }
+        }
+
+        CellType[][] cells = new CellType[N][];
+        for (int i = 0; i < N; i++) {
+            cells[i] = input.cells()[i].clone();
+        }
+        cells[best / N][best % N] = CellType.PLANT;
+        return new Input(N, input.C(), input.P(), input.T(), input.Z(), cells);
+    }
+}
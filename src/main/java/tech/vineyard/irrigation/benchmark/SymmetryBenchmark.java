@@ -0,0 +1,46 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolveReport;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import java.io.IOException;
+
+/**
+ * Time to optimal with and without the redundant and symmetry breaking constraints, on a seed corpus.
+ */
+public class SymmetryBenchmark {
+
+    private static final int SEEDS = 6;
+    private static final int N = 8;
+    private static final double D = 0.2;
+    private static final double TIME_LIMIT = 60;
+
+    public static void main(String[] args) throws IOException {
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT);
+        String[] names = { "none", "redundant", "symmetry", "both" };
+        ModelConfig[] modelConfigs = {
+                ModelConfig.DEFAULT,
+                ModelConfig.DEFAULT.withRedundantConstraints(true),
+                ModelConfig.DEFAULT.withSymmetryBreaking(true),
+                ModelConfig.DEFAULT.withRedundantConstraints(true).withSymmetryBreaking(true)
+        };
+
+        System.out.println(String.format("%5s %10s %9s %14s %10s %10s %9s",
+                "seed", "model", "cost", "propagations", "conflicts", "time (s)", "status"));
+        for (int seed = 1; seed <= SEEDS; seed++) {
+            Input input = new InstanceGenerator(seed).generate(N, D);
+            for (int c = 0; c < modelConfigs.length; c++) {
+                Optimizer optimizer = new Optimizer(input, solverConfig, modelConfigs[c]);
+                Output output = optimizer.solution();
+                SolveReport report = optimizer.report();
+                System.out.println(String.format("%5d %10s %9d %14d %10d %10.3f %9s",
+                        seed, names[c], output.cost(), report.propagations(), report.conflicts(), report.wallTime(), output.status()));
+            }
+        }
+    }
+}
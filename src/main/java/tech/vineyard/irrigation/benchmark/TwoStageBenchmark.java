@@ -0,0 +1,37 @@
+package tech.vineyard.irrigation.benchmark;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.InstanceGenerator;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.TwoStageSolver;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+
+/**
+ * Cost and time of the two stage solver against the Steiner heuristic, versus grid size.
+ */
+public class TwoStageBenchmark {
+
+    private static final int[] SIZES = new int[] { 20, 50, 100, 200 };
+    private static final double D = 0.2;
+    private static final double TIME_LIMIT = 5;
+
+    public static void main(String[] args) {
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withTimeLimit(TIME_LIMIT);
+        System.out.println(String.format("%5s %12s %12s %12s %14s", "N", "steiner", "steiner (s)", "two stage", "two stage (s)"));
+        for (int N : SIZES) {
+            Input input = new InstanceGenerator(N).generate(N, D);
+
+            long start = System.nanoTime();
+            Output steiner = new SteinerHeuristic(input).solution();
+            double steinerTime = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            Output twoStage = new TwoStageSolver(input, solverConfig, ModelConfig.DEFAULT).solution();
+            double twoStageTime = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(String.format("%5d %12d %12.3f %12d %14.3f", N, steiner.cost(), steinerTime, twoStage.cost(), twoStageTime));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package tech.vineyard.irrigation.optimization;
+
+/**
+ * Encoding of the connection of the pipes to the sources.
+ */
+public enum Connectivity {
+    /**
+     * integer flows from the sources to the plants, bounded by the number of plants
+     */
+    FLOW,
+
+    /**
+     * each present pipe selects a parent pipe or source, with depths ordering the tree
+     */
+    ARBORESCENCE,
+
+    /**
+     * no connectivity constraint at first, then cuts separating the components disconnected from the sources
+     * of each optimal solution, until the solution is connected
+     */
+    LAZY
+}
@@ -0,0 +1,149 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.optimization.model.DiskStencil;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Evaluate the cost of a solution the same way as the optimization model.
+ * <p>
+ * As in the model, connectors are counted on every empty cell next to a pipe,
+ * unless the cell is straight between 2 pipes or sources.
+ */
+public class CostEvaluator {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Input input;
+    private final int N;
+    private final CellType[][] cells;
+
+    public CostEvaluator(Input input) {
+        this.input = input;
+        N = input.N();
+        cells = input.cells();
+    }
+
+    public long cost(boolean[][] pipes, boolean[][] sprinklers) {
+        boolean[][] wet = wet(pipes, sprinklers);
+
+        long cost = 0;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (pipes[i][j]) {
+                    cost += input.P();
+                }
+                if (cells[i][j] == CellType.EMPTY) {
+                    cost += (long) input.C() * connectors(pipes, i, j);
+                }
+                if (sprinklers[i][j]) {
+                    cost += input.T();
+                }
+                if (cells[i][j] == CellType.PLANT && !wet[i][j]) {
+                    cost += N * N;
+                }
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Number of connectors of an empty cell: 0 when straight, otherwise the number of adjacent pipes.
+     */
+    public int connectors(boolean[][] pipes, int i, int j) {
+        if (horizontal(pipes, i, j) || vertical(pipes, i, j)) {
+            return 0;
+        }
+
+        int connectors = 0;
+        for (int[] offset : OFFSETS) {
+            int i2 = i + offset[0];
+            int j2 = j + offset[1];
+            if (valid(i2, j2) && pipes[i2][j2]) {
+                connectors++;
+            }
+        }
+        return connectors;
+    }
+
+    /**
+     * Pipes or sources above and below, none on the sides.
+     */
+    public boolean horizontal(boolean[][] pipes, int i, int j) {
+        return isPipeOrSource(pipes, i - 1, j) && isPipeOrSource(pipes, i + 1, j) &&
+                !isPipeOrSource(pipes, i, j - 1) && !isPipeOrSource(pipes, i, j + 1);
+    }
+
+    /**
+     * Pipes or sources on the sides, none above and below.
+     */
+    public boolean vertical(boolean[][] pipes, int i, int j) {
+        return isPipeOrSource(pipes, i, j - 1) && isPipeOrSource(pipes, i, j + 1) &&
+                !isPipeOrSource(pipes, i - 1, j) && !isPipeOrSource(pipes, i + 1, j);
+    }
+
+    /**
+     * Pipes reached by water from a source.
+     */
+    public boolean[][] connected(boolean[][] pipes) {
+        boolean[][] connected = new boolean[N][N];
+        Deque<int[]> queue = new ArrayDeque<>();
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cells[i][j] == CellType.SOURCE) {
+                    queue.add(new int[] { i, j });
+                }
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            for (int[] offset : OFFSETS) {
+                int i2 = cell[0] + offset[0];
+                int j2 = cell[1] + offset[1];
+                if (valid(i2, j2) && pipes[i2][j2] && !connected[i2][j2]) {
+                    connected[i2][j2] = true;
+                    queue.add(new int[] { i2, j2 });
+                }
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Cells sprayed by a sprinkler connected to a source.
+     */
+    public boolean[][] wet(boolean[][] pipes, boolean[][] sprinklers) {
+        boolean[][] connected = connected(pipes);
+        boolean[][] wet = new boolean[N][N];
+        DiskStencil stencil = DiskStencil.of(input.Z());
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (!sprinklers[i][j] || !connected[i][j]) {
+                    continue;
+                }
+                for (int k = 0; k < stencil.size(); k++) {
+                    if (valid(i + stencil.di[k], j + stencil.dj[k])) {
+                        wet[i + stencil.di[k]][j + stencil.dj[k]] = true;
+                    }
+                }
+            }
+        }
+        return wet;
+    }
+
+    private boolean isPipeOrSource(boolean[][] pipes, int i, int j) {
+        return valid(i, j) && (pipes[i][j] || cells[i][j] == CellType.SOURCE);
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+}
@@ -0,0 +1,44 @@
+package tech.vineyard.irrigation.optimization;
+
+/**
+ * Prices of a scenario of a cost sweep.
+ */
+public class CostScenario {
+    /**
+     * connector cost
+     */
+    private final int C;
+
+    /**
+     * pipe cost
+     */
+    private final int P;
+
+    /**
+     * sprinkler cost
+     */
+    private final int T;
+
+    public CostScenario(int C, int P, int T) {
+        this.C = C;
+        this.P = P;
+        this.T = T;
+    }
+
+    public int C() {
+        return C;
+    }
+
+    public int P() {
+        return P;
+    }
+
+    public int T() {
+        return T;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("C=%d P=%d T=%d", C, P, T);
+    }
+}
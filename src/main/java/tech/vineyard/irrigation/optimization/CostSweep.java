@@ -0,0 +1,109 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solve the same grid under several cost scenarios.
+ * <p>
+ * The network, the variables and the constraints are built once and each scenario only builds its cost.
+ * They do not depend on the costs, except the dead end pockets, peeled only when connectors cost no more than pipes:
+ * the network keeps them unless every scenario has such costs. The scenarios are split into consecutive runs solved concurrently.
+ * Within a run, each scenario is warm started from the solution of the previous one, priced with its own costs,
+ * unless the Steiner heuristic is cheaper, so the scenarios are best ordered with close costs next to each other.
+ */
+public class CostSweep {
+
+    private final Input input;
+    private final SolverConfig solverConfig;
+    private final ModelConfig modelConfig;
+    private final int threads;
+
+    /**
+     * @param input grid of the scenarios, its costs being ignored
+     * @param solverConfig configuration of the solve of each scenario
+     * @param threads number of scenarios solved concurrently
+     */
+    public CostSweep(Input input, SolverConfig solverConfig, ModelConfig modelConfig, int threads) {
+        this.input = input;
+        this.solverConfig = solverConfig;
+        this.modelConfig = modelConfig;
+        this.threads = threads;
+    }
+
+    /**
+     * @return solution of each scenario, in the order of the scenarios
+     */
+    public CostTable costTable(List<CostScenario> scenarios) throws IOException {
+        if (scenarios.isEmpty()) {
+            return new CostTable(List.of(), List.of());
+        }
+        // build the network with connectors dearer than pipes if any scenario has them
+        CostScenario costs = scenarios.stream()
+                .filter(scenario -> scenario.C() > scenario.P())
+                .findFirst()
+                .orElse(scenarios.get(0));
+        Optimizer template = new Optimizer(new Input(input.N(), costs.C(), costs.P(), costs.T(), input.Z(), input.cells()),
+                solverConfig, modelConfig);
+        template.model();
+
+        int runs = Math.max(1, Math.min(threads, scenarios.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(runs);
+        try {
+            List<Callable<List<Output>>> solves = new ArrayList<>();
+            for (int r = 0; r < runs; r++) {
+                List<CostScenario> run = scenarios.subList(r * scenarios.size() / runs, (r + 1) * scenarios.size() / runs);
+                solves.add(() -> solveRun(template, run));
+            }
+
+            List<Output> outputs = new ArrayList<>();
+            for (Future<List<Output>> future : executor.invokeAll(solves)) {
+                outputs.addAll(future.get());
+            }
+            return new CostTable(List.copyOf(scenarios), outputs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Solve the scenarios in order, each from the previous solution when it is cheaper than the Steiner heuristic.
+     */
+    private List<Output> solveRun(Optimizer template, List<CostScenario> run) throws IOException {
+        List<Output> outputs = new ArrayList<>();
+        Output previous = null;
+        for (CostScenario scenario : run) {
+            Optimizer optimizer = template.withCosts(scenario.C(), scenario.P(), scenario.T());
+            if (previous != null) {
+                Input costs = new Input(input.N(), scenario.C(), scenario.P(), scenario.T(), input.Z(), input.cells());
+                long cost = new CostEvaluator(costs).cost(previous.pipes(), previous.sprinklers());
+                Output steiner = new SteinerHeuristic(costs).solution();
+                optimizer.setWarmStart(cost < steiner.cost()
+                        ? new Output(previous.pipes(), previous.sprinklers(), SolutionStatus.FEASIBLE, cost, 0)
+                        : steiner);
+            }
+            previous = optimizer.solution();
+            outputs.add(previous);
+        }
+        return outputs;
+    }
+}
@@ -0,0 +1,45 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.Output;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Solution of each scenario of a cost sweep, in the order of the scenarios.
+ */
+public class CostTable {
+
+    private final List<CostScenario> scenarios;
+    private final List<Output> outputs;
+
+    CostTable(List<CostScenario> scenarios, List<Output> outputs) {
+        this.scenarios = scenarios;
+        this.outputs = outputs;
+    }
+
+    public List<CostScenario> scenarios() {
+        return Collections.unmodifiableList(scenarios);
+    }
+
+    public List<Output> outputs() {
+        return Collections.unmodifiableList(outputs);
+    }
+
+    public Output output(int k) {
+        return outputs.get(k);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%5s %5s %5s %10s %10s %10s%n", "C", "P", "T", "cost", "bound", "status"));
+        for (int k = 0; k < scenarios.size(); k++) {
+            CostScenario scenario = scenarios.get(k);
+            Output output = outputs.get(k);
+            sb.append(String.format("%5d %5d %5d %10d %10d %10s%n", scenario.C(), scenario.P(), scenario.T(),
+                    output.cost(), output.bound(), output.status()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.model.Network;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
+import tech.vineyard.irrigation.optimization.model.RegionDecomposition;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solve the independent regions of the grid concurrently, and merge their solutions.
+ * <p>
+ * Regions coupled by a plant both can cover are one region, solved by a joint model.
+ * The decomposition is exact: the cost is the sum of the costs of the regions.
+ */
+public class DecomposedOptimizer implements Solver {
+
+    private final Input input;
+    private final SolverConfig solverConfig;
+    private final ModelConfig modelConfig;
+    private final int threads;
+
+    /**
+     * @param solverConfig configuration of the solve of each region
+     * @param threads number of regions solved concurrently
+     */
+    public DecomposedOptimizer(Input input, SolverConfig solverConfig, ModelConfig modelConfig, int threads) {
+        this.input = input;
+        this.solverConfig = solverConfig;
+        this.modelConfig = modelConfig;
+        this.threads = threads;
+    }
+
+    @Override
+    public Output solution() throws IOException {
+        boolean[] sprinklerCandidates = new SprinklerPresolve(input, modelConfig.pruneDominatedSprinklers()).candidates();
+        List<boolean[]> regions = new RegionDecomposition(input, sprinklerCandidates).regions();
+        log(String.format("Decomposed into %d regions", regions.size()));
+        if (regions.size() <= 1) {
+            return new Optimizer(input, solverConfig, modelConfig).solution();
+        }
+
+        List<Output> outputs = solveRegions(regions);
+
+        int N = input.N();
+        boolean[][] pipes = new boolean[N][N];
+        boolean[][] sprinklers = new boolean[N][N];
+        SolutionStatus status = SolutionStatus.OPTIMAL;
+        long cost = 0;
+        long bound = 0;
+        for (Output output : outputs) {
+            for (int i = 0; i < N; i++) {
+                for (int j = 0; j < N; j++) {
+                    pipes[i][j] |= output.pipes()[i][j];
+                    sprinklers[i][j] |= output.sprinklers()[i][j];
+                }
+            }
+            if (output.status() != SolutionStatus.OPTIMAL) {
+                status = SolutionStatus.FEASIBLE;
+            }
+            cost += output.cost();
+            bound += output.bound();
+        }
+
+        // the cost of each region counts the plants of the other regions as dry
+        long otherRegionsPlants = (long) N*N * plants() * (outputs.size() - 1);
+        Output output = new Output(pipes, sprinklers, status, cost - otherRegionsPlants, bound - otherRegionsPlants);
+
+        Network network = new NetworkBuilder(input, sprinklerCandidates).build();
+        new IrrigationGraphSerializer(network, output, new FlowAssignment(network, output))
+                .buildGraph();
+        return output;
+    }
+
+    private List<Output> solveRegions(List<boolean[]> regions) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Output>> solves = new ArrayList<>();
+            for (boolean[] region : regions) {
+                solves.add(() -> new Optimizer(input, solverConfig, modelConfig, region).solution());
+            }
+
+            List<Output> outputs = new ArrayList<>();
+            for (Future<Output> future : executor.invokeAll(solves)) {
+                outputs.add(future.get());
+            }
+            return outputs;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int plants() {
+        int plants = 0;
+        for (int i = 0; i < input.N(); i++) {
+            for (int j = 0; j < input.N(); j++) {
+                if (input.cells()[i][j] == CellType.PLANT) {
+                    plants++;
+                }
+            }
+        }
+        return plants;
+    }
+
+    private void log(String message) {
+        System.err.println(message);
+    }
+}
@@ -0,0 +1,170 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.model.Network;
+
+import java.util.Arrays;
+
+/**
+ * Network flow matching a solution, used to hint the solver.
+ * <p>
+ * Water flows along a breadth first search tree of the pipes rooted at the sources.
+ * Each irrigated plant receives a flow of 1 from a single sprinkler,
+ * or with a set cover each connected sprinkler consumes a flow of 1.
+ */
+public class FlowAssignment {
+
+    private final Network network;
+    private final Output output;
+    private final boolean sprinklerDemand;
+
+    /**
+     * flow out of the pipe, per arc of each type
+     */
+    public final int[] pipeArcFlow;
+    public final int[] sourceArcFlow;
+    public final int[] plantArcFlow;
+
+    /**
+     * whether the arc is the single one bringing water into its pipe
+     */
+    public final boolean[] isPipeArcInFlow;
+    public final boolean[] isSourceArcInFlow;
+    public final boolean[] isPlantArcInFlow;
+
+    /**
+     * depth of each pipe in the search tree, 1 next to a source
+     */
+    public final int[] depth;
+
+    private final boolean[] irrigated;
+
+    public FlowAssignment(Network network, Output output) {
+        this(network, output, false);
+    }
+
+    /**
+     * @param sprinklerDemand whether the sprinklers consume the flow, instead of the plants
+     */
+    public FlowAssignment(Network network, Output output, boolean sprinklerDemand) {
+        this.network = network;
+        this.output = output;
+        this.sprinklerDemand = sprinklerDemand;
+
+        pipeArcFlow = new int[network.pipeArcs()];
+        sourceArcFlow = new int[network.sourceArcs()];
+        plantArcFlow = new int[network.plantArcs()];
+        isPipeArcInFlow = new boolean[network.pipeArcs()];
+        isSourceArcInFlow = new boolean[network.sourceArcs()];
+        isPlantArcInFlow = new boolean[network.plantArcs()];
+        depth = new int[network.pipes()];
+        Arrays.fill(depth, 1);
+        irrigated = new boolean[network.plants()];
+
+        assign();
+    }
+
+    public boolean isDry(int plant) {
+        return !irrigated[plant];
+    }
+
+    private void assign() {
+        // arc from the parent in the tree, source arcs are encoded as -1 - arc
+        int[] parentArc = new int[network.pipes()];
+        boolean[] visited = new boolean[network.pipes()];
+        int[] order = new int[network.pipes()];
+        int head = 0;
+        int tail = 0;
+
+        // breadth first search from the sources
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            int pipe = network.sourceArcPipes[a];
+            if (isPipe(pipe) && !visited[pipe]) {
+                visited[pipe] = true;
+                parentArc[pipe] = -1 - a;
+                depth[pipe] = 1;
+                order[tail++] = pipe;
+            }
+        }
+        while (head < tail) {
+            int pipe = order[head++];
+            for (int a = network.pipeArcOffsets[pipe]; a < network.pipeArcOffsets[pipe + 1]; a++) {
+                int end = network.pipeArcEnds[a];
+                if (isPipe(end) && !visited[end]) {
+                    visited[end] = true;
+                    parentArc[end] = a;
+                    depth[end] = depth[pipe] + 1;
+                    order[tail++] = end;
+                }
+            }
+        }
+
+        // each irrigated plant is served by the first connected sprinkler covering it
+        int[] total = new int[network.pipes()];
+        for (int k = 0; k < network.plants(); k++) {
+            for (int a = network.plantArcOffsets[k]; a < network.plantArcOffsets[k + 1]; a++) {
+                int pipe = network.plantArcPipes[a];
+                if (visited[pipe] && isSprinkler(pipe)) {
+                    irrigated[k] = true;
+                    if (!sprinklerDemand) {
+                        plantArcFlow[a] = 1;
+                        total[pipe]++;
+                    }
+                    break;
+                }
+            }
+        }
+        if (sprinklerDemand) {
+            for (int pipe = 0; pipe < network.pipes(); pipe++) {
+                if (visited[pipe] && isSprinkler(pipe)) {
+                    total[pipe] = 1;
+                }
+            }
+        }
+
+        // accumulate the flow from the leaves up to the sources
+        for (int t = tail - 1; t >= 0; t--) {
+            int pipe = order[t];
+            int flow = total[pipe];
+            if (parentArc[pipe] < 0) {
+                int sourceArc = -1 - parentArc[pipe];
+                sourceArcFlow[sourceArc] = -flow;
+                isSourceArcInFlow[sourceArc] = true;
+            } else {
+                int pipeArc = parentArc[pipe];
+                int reverseArc = network.reverseArc(pipeArc);
+                pipeArcFlow[pipeArc] = flow;
+                pipeArcFlow[reverseArc] = -flow;
+                isPipeArcInFlow[reverseArc] = true;
+                total[network.pipeArcStarts[pipeArc]] += flow;
+            }
+        }
+
+        // disconnected pipes carry no flow, but still need an incoming arc
+        for (int pipe = 0; pipe < network.pipes(); pipe++) {
+            if (isPipe(pipe) && !visited[pipe]) {
+                markAnyInFlowArc(pipe);
+            }
+        }
+    }
+
+    private void markAnyInFlowArc(int pipe) {
+        if (network.pipeArcOffsets[pipe] < network.pipeArcOffsets[pipe + 1]) {
+            isPipeArcInFlow[network.pipeArcOffsets[pipe]] = true;
+        } else if (network.pipeSourceArcOffsets[pipe] < network.pipeSourceArcOffsets[pipe + 1]) {
+            isSourceArcInFlow[network.pipeSourceArcs[network.pipeSourceArcOffsets[pipe]]] = true;
+        } else if (network.pipePlantArcOffsets[pipe] < network.pipePlantArcOffsets[pipe + 1]) {
+            isPlantArcInFlow[network.pipePlantArcs[network.pipePlantArcOffsets[pipe]]] = true;
+        }
+    }
+
+    private boolean isPipe(int pipe) {
+        int cell = network.pipeCells[pipe];
+        return output.pipes()[network.row(cell)][network.column(cell)];
+    }
+
+    private boolean isSprinkler(int pipe) {
+        int cell = network.pipeCells[pipe];
+        return network.sprinklerCandidates[pipe] && output.sprinklers()[network.row(cell)][network.column(cell)];
+    }
+}
@@ -0,0 +1,418 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+import tech.vineyard.irrigation.optimization.model.DiskStencil;
+import tech.vineyard.irrigation.optimization.model.DistanceField;
+import tech.vineyard.irrigation.optimization.model.Network;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
+import tech.vineyard.irrigation.optimization.model.Router;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Solve grids too large for a model of every cell, coarse to fine.
+ * <p>
+ * The grid is cut into square blocks. At the coarse level each block is a cell, a source when it holds a source,
+ * and a tree grown by the {@link Router} from the sources to the blocks holding plants gives the corridor and the order of the blocks.
+ * At the fine level, the blocks of the corridor are solved in that order by the {@link Optimizer}, each on a grid of the block
+ * and its spray margin: the pipes already laid are sources, the plants already irrigated are left out,
+ * and a block not touching the pipes is first joined to them by a cheapest path through the corridor.
+ * The plants still dry at the end are irrigated by a sprinkler at the end of a cheapest path. The block models have a bounded size, so the memory and the time grow with the area.
+ * <p>
+ * A dry plant of a block costs the square of the block grid size rather than N*N, and the pipes of a block are final once
+ * it is solved, so the solution is not optimal. Its cost is evaluated on the whole grid.
+ */
+public class HierarchicalSolver implements Solver {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Input input;
+    private final SolverConfig solverConfig;
+    private final ModelConfig modelConfig;
+    private final int blockSize;
+    private final int N;
+    private final int Z;
+    private final CellType[][] cells;
+    private final DiskStencil stencil;
+
+    private boolean[][] pipes;
+    private boolean[][] sprinklers;
+
+    /**
+     * pipes joined to a source, the sources of the following blocks
+     */
+    private boolean[] connected;
+
+    /**
+     * plants irrigated by the blocks already solved
+     */
+    private boolean[] wet;
+
+    /**
+     * @param solverConfig configuration of the solve of each block
+     * @param blockSize side of the blocks, in cells
+     */
+    public HierarchicalSolver(Input input, SolverConfig solverConfig, ModelConfig modelConfig, int blockSize) {
+        this.input = input;
+        this.solverConfig = solverConfig;
+        this.modelConfig = modelConfig;
+        this.blockSize = blockSize;
+        N = input.N();
+        Z = input.Z();
+        cells = input.cells();
+        stencil = DiskStencil.of(Z);
+    }
+
+    @Override
+    public Output solution() throws IOException {
+        pipes = new boolean[N][N];
+        sprinklers = new boolean[N][N];
+        connected = new boolean[N*N];
+        wet = new boolean[N*N];
+
+        int M = (N + blockSize - 1) / blockSize;
+        int[] blocks = corridorBlocks(M);
+        log(String.format("Corridor of %d blocks out of %d", blocks.length, M*M));
+
+        boolean[] corridor = new boolean[N*N];
+        for (int block : blocks) {
+            for (int cell : blockCells(block / M, block % M)) {
+                corridor[cell] = true;
+            }
+        }
+        Network network = new NetworkBuilder(input, new boolean[N*N], corridor).build();
+        DistanceField field = new Router(input, network).field();
+        int[] sources = new int[network.sources()];
+        for (int s = 0; s < sources.length; s++) {
+            sources[s] = s;
+        }
+        field.addSources(sources);
+
+        for (int block : blocks) {
+            int bi = block / M;
+            int bj = block % M;
+            if (!hasDryPlants(bi, bj) || !join(bi, bj, network, field)) {
+                continue;
+            }
+
+            int[] laid = refine(bi, bj);
+            int[] laidPipes = new int[laid.length];
+            for (int k = 0; k < laid.length; k++) {
+                laidPipes[k] = network.pipeIndex(laid[k]);
+            }
+            field.addPipes(laidPipes);
+        }
+        irrigate(network, field);
+
+        long cost = new CostEvaluator(input).cost(pipes, sprinklers);
+        return new Output(pipes, sprinklers, SolutionStatus.FEASIBLE, cost, 0);
+    }
+
+    /**
+     * Coarse level: grow a tree over the grid of blocks, a block step costing a block of pipes.
+     *
+     * @return blocks of the corridor, the blocks holding a source first, then in the order the tree reaches them
+     */
+    private int[] corridorBlocks(int M) {
+        CellType[][] blockTypes = new CellType[M][M];
+        for (CellType[] row : blockTypes) {
+            Arrays.fill(row, CellType.EMPTY);
+        }
+        boolean[] plantBlocks = new boolean[M*M];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cells[i][j] == CellType.SOURCE) {
+                    blockTypes[i / blockSize][j / blockSize] = CellType.SOURCE;
+                } else if (cells[i][j] == CellType.PLANT) {
+                    plantBlocks[(i / blockSize)*M + j / blockSize] = true;
+                }
+            }
+        }
+
+        Input coarse = new Input(M, input.C(), input.P() * blockSize, input.T(), 1, blockTypes);
+        Network network = new NetworkBuilder(coarse).build();
+        int[] targets = new int[network.pipes()];
+        int count = 0;
+        for (int p = 0; p < network.pipes(); p++) {
+            if (plantBlocks[network.pipeCells[p]]) {
+                targets[count++] = p;
+            }
+        }
+
+        int[] blocks = new int[M*M];
+        boolean[] added = new boolean[M*M];
+        int size = 0;
+        for (int source : network.sourceCells) {
+            added[source] = true;
+            blocks[size++] = source;
+        }
+        for (int[] path : new Router(coarse, network).tree(Arrays.copyOf(targets, count))) {
+            // from the tree to the target
+            for (int k = path.length - 1; k >= 0; k--) {
+                int block = network.pipeCells[path[k]];
+                if (!added[block]) {
+                    added[block] = true;
+                    blocks[size++] = block;
+                }
+            }
+        }
+        return Arrays.copyOf(blocks, size);
+    }
+
+    /**
+     * Join the block to the pipes by the cheapest path through the corridor, unless it already touches them.
+     *
+     * @return whether the block touches the pipes
+     */
+    private boolean join(int bi, int bj, Network network, DistanceField field) {
+        int best = -1;
+        for (int cell : blockCells(bi, bj)) {
+            if (touches(cell)) {
+                return true;
+            }
+            int p = network.pipeIndex(cell);
+            if (p >= 0 && field.distance(p) < Long.MAX_VALUE && (best < 0 || field.distance(p) < field.distance(best))) {
+                best = p;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+
+        int[] path = field.path(best);
+        for (int p : path) {
+            int cell = network.pipeCells[p];
+            pipes[network.row(cell)][network.column(cell)] = true;
+            connected[cell] = true;
+        }
+        field.addPipes(path);
+        return true;
+    }
+
+    /**
+     * Irrigate the plants left dry by the blocks, a dry plant costing more than the path to its closest sprinkler.
+     */
+    private void irrigate(Network network, DistanceField field) {
+        for (int plant = 0; plant < N*N; plant++) {
+            if (cells[plant / N][plant % N] != CellType.PLANT || wet[plant]) {
+                continue;
+            }
+            int best = -1;
+            for (int d = 0; d < stencil.size(); d++) {
+                int i = plant / N + stencil.di[d];
+                int j = plant % N + stencil.dj[d];
+                int p = valid(i, j) ? network.pipeIndex(i*N + j) : -1;
+                if (p >= 0 && field.distance(p) < Long.MAX_VALUE && (best < 0 || field.distance(p) < field.distance(best))) {
+                    best = p;
+                }
+            }
+            if (best < 0) {
+                continue;
+            }
+
+            int[] path = field.path(best);
+            for (int p : path) {
+                int cell = network.pipeCells[p];
+                pipes[network.row(cell)][network.column(cell)] = true;
+                connected[cell] = true;
+            }
+            field.addPipes(path);
+            int i = network.row(network.pipeCells[best]);
+            int j = network.column(network.pipeCells[best]);
+            sprinklers[i][j] = true;
+            spray(i, j);
+        }
+    }
+
+    private boolean touches(int cell) {
+        if (isSource(cell)) {
+            return true;
+        }
+        for (int[] offset : OFFSETS) {
+            int i = cell / N + offset[0];
+            int j = cell % N + offset[1];
+            if (valid(i, j) && isSource(i*N + j)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fine level: solve the block on a grid with its spray margin, the laid pipes being sources.
+     *
+     * @return new pipes joined to the sources
+     */
+    private int[] refine(int bi, int bj) throws IOException {
+        int S = blockSize + 2*Z;
+        int i0 = bi*blockSize - Z;
+        int j0 = bj*blockSize - Z;
+
+        CellType[][] blockTypes = new CellType[S][S];
+        boolean[] region = new boolean[S*S];
+        int plants = 0;
+        for (int a = 0; a < S; a++) {
+            for (int b = 0; b < S; b++) {
+                int i = i0 + a;
+                int j = j0 + b;
+                blockTypes[a][b] = CellType.EMPTY;
+                if (!valid(i, j)) {
+                    continue;
+                }
+                if (isSource(i*N + j)) {
+                    blockTypes[a][b] = CellType.SOURCE;
+                    region[a*S + b] = true;
+                } else if (cells[i][j] == CellType.PLANT) {
+                    blockTypes[a][b] = CellType.PLANT;
+                    region[a*S + b] = !wet[i*N + j];
+                    plants++;
+                } else {
+                    region[a*S + b] = inBlock(i, j, bi, bj) && !pipes[i][j];
+                }
+            }
+        }
+
+        Input blockInput = new Input(S, input.C(), input.P(), input.T(), Z, blockTypes);
+        Optimizer optimizer = new Optimizer(blockInput, solverConfig, modelConfig, region);
+        optimizer.setWarmStart(warmStart(blockInput, region, (long) S*S * plants));
+        Output output = optimizer.solution();
+
+        int[] queue = new int[blockSize*blockSize];
+        int head = 0;
+        int tail = 0;
+        for (int a = 0; a < S; a++) {
+            for (int b = 0; b < S; b++) {
+                int i = i0 + a;
+                int j = j0 + b;
+                if (blockTypes[a][b] != CellType.EMPTY || !region[a*S + b] || !output.pipes()[a][b]) {
+                    continue;
+                }
+                pipes[i][j] = true;
+                if (output.sprinklers()[a][b]) {
+                    sprinklers[i][j] = true;
+                    spray(i, j);
+                }
+                if (touches(i*N + j)) {
+                    connected[i*N + j] = true;
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+
+        // isolated pipes straightening a neighbour are not joined to the sources
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int[] offset : OFFSETS) {
+                int i = cell / N + offset[0];
+                int j = cell % N + offset[1];
+                if (valid(i, j) && inBlock(i, j, bi, bj) && pipes[i][j] && !connected[i*N + j]) {
+                    connected[i*N + j] = true;
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+        return Arrays.copyOf(queue, tail);
+    }
+
+    /**
+     * Steiner heuristic of the block, without the pipes outside the region nor the pipes cut from the sources.
+     * Its cost in the region is bounded by the empty solution plus each pipe with its connectors and each sprinkler.
+     *
+     * @param dryCost cost of the empty solution, every plant being dry
+     */
+    private Output warmStart(Input blockInput, boolean[] region, long dryCost) {
+        int S = blockInput.N();
+        CellType[][] blockTypes = blockInput.cells();
+        boolean[] candidates = new boolean[S*S];
+        for (int cell = 0; cell < S*S; cell++) {
+            candidates[cell] = region[cell] && blockTypes[cell / S][cell % S] == CellType.EMPTY;
+        }
+        Output steiner = new SteinerHeuristic(blockInput, candidates).solution();
+
+        boolean[][] p = new boolean[S][S];
+        boolean[][] s = new boolean[S][S];
+        int[] queue = new int[S*S];
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < S*S; cell++) {
+            if (region[cell] && blockTypes[cell / S][cell % S] == CellType.SOURCE) {
+                queue[tail++] = cell;
+            }
+        }
+        long cost = dryCost;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int[] offset : OFFSETS) {
+                int i = cell / S + offset[0];
+                int j = cell % S + offset[1];
+                if (0 <= i && i < S && 0 <= j && j < S && candidates[i*S + j] && steiner.pipes()[i][j] && !p[i][j]) {
+                    p[i][j] = true;
+                    s[i][j] = steiner.sprinklers()[i][j];
+                    cost += blockInput.P() + 4L * blockInput.C() + (s[i][j] ? blockInput.T() : 0);
+                    queue[tail++] = i*S + j;
+                }
+            }
+        }
+        return new Output(p, s, SolutionStatus.FEASIBLE, cost, 0);
+    }
+
+    private boolean hasDryPlants(int bi, int bj) {
+        for (int cell : blockCells(bi, bj)) {
+            if (cells[cell / N][cell % N] == CellType.PLANT && !wet[cell]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void spray(int i, int j) {
+        for (int d = 0; d < stencil.size(); d++) {
+            int i2 = i + stencil.di[d];
+            int j2 = j + stencil.dj[d];
+            if (valid(i2, j2)) {
+                wet[i2*N + j2] = true;
+            }
+        }
+    }
+
+    private int[] blockCells(int bi, int bj) {
+        int iMax = Math.min(N, (bi + 1) * blockSize);
+        int jMax = Math.min(N, (bj + 1) * blockSize);
+        int[] blockCells = new int[blockSize*blockSize];
+        int size = 0;
+        for (int i = bi*blockSize; i < iMax; i++) {
+            for (int j = bj*blockSize; j < jMax; j++) {
+                blockCells[size++] = i*N + j;
+            }
+        }
+        return Arrays.copyOf(blockCells, size);
+    }
+
+    /**
+     * Source, or pipe joined to a source.
+     */
+    private boolean isSource(int cell) {
+        return cells[cell / N][cell % N] == CellType.SOURCE || connected[cell];
+    }
+
+    private boolean inBlock(int i, int j, int bi, int bj) {
+        return i / blockSize == bi && j / blockSize == bj;
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+
+    private void log(String message) {
+        System.err.println(message);
+    }
+}
@@ -0,0 +1,47 @@
+package tech.vineyard.irrigation.optimization;
+
+import com.google.ortools.sat.CpSolverSolutionCallback;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+
+/**
+ * Publish each incumbent found by CP-SAT to a listener, and stop the search at a target cost.
+ */
+public class IncumbentCallback extends CpSolverSolutionCallback {
+
+    private final VariableIndex variableIndex;
+
+    /**
+     * cost at which the search stops, the gap being closed enough
+     */
+    private final long stopCost;
+
+    private final SolutionListener listener;
+
+    IncumbentCallback(VariableIndex variableIndex, long stopCost, SolutionListener listener) {
+        this.variableIndex = variableIndex;
+        this.stopCost = stopCost;
+        this.listener = listener;
+    }
+
+    @Override
+    public void onSolutionCallback() {
+        int N = variableIndex.N;
+        boolean[][] p = new boolean[N][N];
+        boolean[][] s = new boolean[N][N];
+
+        for (int pipe = 0; pipe < variableIndex.pipes(); pipe++) {
+            int i = variableIndex.pipeCells[pipe] / N;
+            int j = variableIndex.pipeCells[pipe] % N;
+            p[i][j] = solutionBooleanValue(variableIndex.isPipe[pipe]);
+            s[i][j] = variableIndex.isSprinkler[pipe] >= 0 && solutionBooleanValue(variableIndex.isSprinkler[pipe]);
+        }
+
+        Output output = new Output(p, s, SolutionStatus.FEASIBLE, (long) objectiveValue(), (long) bestObjectiveBound());
+        listener.onSolution(output, wallTime());
+
+        if (output.cost() <= stopCost) {
+            stopSearch();
+        }
+    }
+}
@@ -1,17 +1,7 @@
 package tech.vineyard.irrigation.optimization;
 
-import com.google.ortools.sat.BoolVar;
-import com.google.ortools.sat.CpSolver;
-import com.google.ortools.sat.IntVar;
+import tech.vineyard.irrigation.Output;
 import tech.vineyard.irrigation.optimization.model.Network;
-import tech.vineyard.irrigation.optimization.model.arcs.Arc;
-import tech.vineyard.irrigation.optimization.model.arcs.PipeArc;
-import tech.vineyard.irrigation.optimization.model.arcs.PlantArc;
-import tech.vineyard.irrigation.optimization.model.arcs.SourceArc;
-import tech.vineyard.irrigation.optimization.model.cells.Cell;
-import tech.vineyard.irrigation.optimization.model.cells.Pipe;
-import tech.vineyard.irrigation.optimization.model.cells.Plant;
-import tech.vineyard.irrigation.optimization.model.cells.Source;
 import tech.vineyard.irrigation.optimization.viz.Edge;
 import tech.vineyard.irrigation.optimization.viz.EdgeStyle;
 import tech.vineyard.irrigation.optimization.viz.GraphSerializer;
@@ -23,24 +13,17 @@ import tech.vineyard.irrigation.optimization.viz.Position;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Map;
 
 public class IrrigationGraphSerializer {
 
     private final Network network;
-    private final CpSolver cpSolver;
+    private final Output output;
+    private final FlowAssignment flowAssignment;
 
-    private final Map<Pipe, BoolVar> isPipe;
-    private final Map<Pipe, BoolVar> isSprinkler;
-
-    private final Map<Arc, IntVar> pipeOutFlow;
-
-    public IrrigationGraphSerializer(Network network, CpSolver cpSolver, Map<Pipe, BoolVar> isPipe, Map<Pipe, BoolVar> isSprinkler, Map<Arc, IntVar> pipeOutFlow) {
+    public IrrigationGraphSerializer(Network network, Output output, FlowAssignment flowAssignment) {
         this.network = network;
-        this.cpSolver = cpSolver;
-        this.isPipe = isPipe;
-        this.isSprinkler = isSprinkler;
-        this.pipeOutFlow = pipeOutFlow;
+        this.output = output;
+        this.flowAssignment = flowAssignment;
     }
 
     public void buildGraph() throws IOException {
@@ -48,45 +31,45 @@ public class IrrigationGraphSerializer {
 
         graphSerializer.open();
 
-        network.sourceAdjacency
-                .forEach(((source, sourceArcs) -> {
-                    graphSerializer.addNode(node(source));
-                    sourceArcs.forEach(sourceArc -> graphSerializer.addEdge(edge(sourceArc)));
-                }));
-        network.pipeAdjacency
-                .forEach(((pipe, pipeArcs) -> {
-                    graphSerializer.addNode(node(pipe));
-                    pipeArcs.forEach(pipeArc -> graphSerializer.addEdge(edge(pipeArc)));
-                }));
-
-        network.plantAdjacency
-                .forEach(((plant, plantArcs) -> {
-                    graphSerializer.addNode(node(plant));
-                    plantArcs.forEach(plantArc -> graphSerializer.addEdge(edge(plantArc)));
-                }));
+        for (int s = 0; s < network.sources(); s++) {
+            graphSerializer.addNode(node(network.sourceCells[s], NodeShape.DIAMOND, "deepskyblue3"));
+            for (int a = network.sourceArcOffsets[s]; a < network.sourceArcOffsets[s + 1]; a++) {
+                int flow = -flowAssignment.sourceArcFlow[a];
+                graphSerializer.addEdge(edge(network.sourceCells[s], network.pipeCells[network.sourceArcPipes[a]], flow));
+            }
+        }
 
-        graphSerializer.close();
-    }
+        for (int p = 0; p < network.pipes(); p++) {
+            graphSerializer.addNode(node(network.pipeCells[p], nodeShape(p), "deepskyblue2"));
+            for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+                int flow = flowAssignment.pipeArcFlow[a];
+                graphSerializer.addEdge(edge(network.pipeCells[p], network.pipeCells[network.pipeArcEnds[a]], flow));
+            }
+        }
 
-    private Node node(Source source) {
-        return new Node(id(source), label(source), NodeShape.DIAMOND, new Position(source.i(), source.j()), "deepskyblue3");
-    }
+        for (int k = 0; k < network.plants(); k++) {
+            graphSerializer.addNode(node(network.plantCells[k], NodeShape.CIRCLE, "deepskyblue1"));
+            for (int a = network.plantArcOffsets[k]; a < network.plantArcOffsets[k + 1]; a++) {
+                int flow = flowAssignment.plantArcFlow[a];
+                graphSerializer.addEdge(edge(network.pipeCells[network.plantArcPipes[a]], network.plantCells[k], flow));
+            }
+        }
 
-    private Node node(Pipe pipe) {
-        return new Node(id(pipe), label(pipe), nodeShape(pipe), new Position(pipe.i(), pipe.j()), "deepskyblue2");
+        graphSerializer.close();
     }
 
-    private Node node(Plant plant) {
-        return new Node(id(plant), label(plant), NodeShape.CIRCLE, new Position(plant.i(), plant.j()), "deepskyblue1");
+    private Node node(int cell, NodeShape shape, String color) {
+        return new Node(id(cell), id(cell), shape, new Position(network.row(cell), network.column(cell)), color);
     }
 
-    private NodeShape nodeShape(Pipe pipe) {
-        boolean pipeEnabled = cpSolver.booleanValue(isPipe.get(pipe));
+    private NodeShape nodeShape(int pipe) {
+        int cell = network.pipeCells[pipe];
+        boolean pipeEnabled = output.pipes()[network.row(cell)][network.column(cell)];
         if (!pipeEnabled) {
             return NodeShape.POINT;
         }
 
-        boolean sprinklerEnabled = cpSolver.booleanValue(isSprinkler.get(pipe));
+        boolean sprinklerEnabled = output.sprinklers()[network.row(cell)][network.column(cell)];
         if (!sprinklerEnabled) {
             return NodeShape.SQUARE;
         }
@@ -102,31 +85,16 @@ public class IrrigationGraphSerializer {
         return EdgeStyle.SOLID;
     }
 
-    private Edge edge(SourceArc sourceArc) {
-        int flow = (int) -cpSolver.value(pipeOutFlow.get(sourceArc));
-        return new Edge(id(sourceArc.start), id(sourceArc.end), label(flow), edgeStyle(flow));
-    }
-
-    private Edge edge(PipeArc pipeArc) {
-        int flow = (int) cpSolver.value(pipeOutFlow.get(pipeArc));
-        return new Edge(id(pipeArc.start), id(pipeArc.end), label(flow), edgeStyle(flow));
-    }
-
-    private Edge edge(PlantArc plantArc) {
-        int flow = (int) cpSolver.value(pipeOutFlow.get(plantArc));
-        return new Edge(id(plantArc.start), id(plantArc.end), label(flow), edgeStyle(flow));
+    private Edge edge(int start, int end, int flow) {
+        return new Edge(id(start), id(end), label(flow), edgeStyle(flow));
     }
 
     private String label(int flow) {
         return String.format("%d", flow);
     }
 
-    private String label(Cell source) {
-        return id(source);
-    }
-
-    private String id(Cell source) {
-        return String.format("%d_%d", source.i(), source.j());
+    private String id(int cell) {
+        return String.format("%d_%d", network.row(cell), network.column(cell));
     }
 
 }
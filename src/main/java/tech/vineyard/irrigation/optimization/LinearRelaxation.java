@@ -0,0 +1,149 @@
+package tech.vineyard.irrigation.optimization;
+
+import com.google.ortools.Loader;
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.optimization.model.Network;
+
+/**
+ * Lower bound of the cost, from the LP relaxation of the flow formulation solved by GLOP.
+ * <p>
+ * Pipes, sprinklers and dry plants are fractional. Sources send flow through the present pipes,
+ * and each irrigated plant receives a unit of flow from its sprinklers.
+ * A present pipe not adjacent to a source has a present neighbour.
+ * The connector cost is relaxed to 0.
+ */
+public class LinearRelaxation {
+
+    private final Input input;
+    private final Network network;
+
+    private double wallTime;
+
+    public LinearRelaxation(Input input, Network network) {
+        this.input = input;
+        this.network = network;
+    }
+
+    /**
+     * @return lower bound of the cost of the network, 0 when the relaxation is not solved
+     */
+    public long bound() {
+        long start = System.nanoTime();
+        Loader.loadNativeLibraries();
+        MPSolver solver = MPSolver.createSolver("GLOP");
+        try {
+            MPObjective objective = buildModel(solver);
+            MPSolver.ResultStatus status = solver.solve();
+            if (status != MPSolver.ResultStatus.OPTIMAL) {
+                return 0;
+            }
+            // round up the fractional bound, with a tolerance for the LP accuracy
+            return (long) Math.ceil(objective.value() - 1e-6);
+        } finally {
+            solver.delete();
+            wallTime = (System.nanoTime() - start) / 1e9;
+        }
+    }
+
+    /**
+     * Time of the last relaxation, in seconds.
+     */
+    public double wallTime() {
+        return wallTime;
+    }
+
+    private MPObjective buildModel(MPSolver solver) {
+        int N = input.N();
+        double capacity = network.plants();
+
+        MPVariable[] isPipe = solver.makeNumVarArray(network.pipes(), 0, 1);
+        MPVariable[] isSprinkler = new MPVariable[network.pipes()];
+        for (int p = 0; p < network.pipes(); p++) {
+            if (network.sprinklerCandidates[p]) {
+                isSprinkler[p] = solver.makeNumVar(0, 1, "");
+            }
+        }
+        MPVariable[] isDry = solver.makeNumVarArray(network.plants(), 0, 1);
+        MPVariable[] pipeArcFlow = solver.makeNumVarArray(network.pipeArcs(), 0, capacity);
+        MPVariable[] sourceArcFlow = solver.makeNumVarArray(network.sourceArcs(), 0, capacity);
+        MPVariable[] plantArcFlow = solver.makeNumVarArray(network.plantArcs(), 0, 1);
+
+        for (int p = 0; p < network.pipes(); p++) {
+            // sprinkler <= pipe
+            if (isSprinkler[p] != null) {
+                MPConstraint sprinkler = solver.makeConstraint(Double.NEGATIVE_INFINITY, 0);
+                sprinkler.setCoefficient(isSprinkler[p], 1);
+                sprinkler.setCoefficient(isPipe[p], -1);
+            }
+
+            // flow into the pipe = flow out of the pipe
+            MPConstraint conservation = solver.makeConstraint(0, 0);
+            for (int k = network.pipeSourceArcOffsets[p]; k < network.pipeSourceArcOffsets[p + 1]; k++) {
+                conservation.setCoefficient(sourceArcFlow[network.pipeSourceArcs[k]], 1);
+            }
+            for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+                conservation.setCoefficient(pipeArcFlow[network.reverseArc(a)], 1);
+                conservation.setCoefficient(pipeArcFlow[a], -1);
+            }
+            for (int k = network.pipePlantArcOffsets[p]; k < network.pipePlantArcOffsets[p + 1]; k++) {
+                conservation.setCoefficient(plantArcFlow[network.pipePlantArcs[k]], -1);
+            }
+
+            // pipe <= sum of the neighbour pipes, unless next to a source
+            if (network.pipeSourceArcOffsets[p] == network.pipeSourceArcOffsets[p + 1]) {
+                MPConstraint neighbours = solver.makeConstraint(Double.NEGATIVE_INFINITY, 0);
+                neighbours.setCoefficient(isPipe[p], 1);
+                for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+                    neighbours.setCoefficient(isPipe[network.pipeArcEnds[a]], -1);
+                }
+            }
+        }
+
+        // flow only through present pipes
+        for (int a = 0; a < network.pipeArcs(); a++) {
+            addCapacity(solver, pipeArcFlow[a], isPipe[network.pipeArcStarts[a]], capacity);
+            addCapacity(solver, pipeArcFlow[a], isPipe[network.pipeArcEnds[a]], capacity);
+        }
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            addCapacity(solver, sourceArcFlow[a], isPipe[network.sourceArcPipes[a]], capacity);
+        }
+        for (int a = 0; a < network.plantArcs(); a++) {
+            addCapacity(solver, plantArcFlow[a], isSprinkler[network.plantArcPipes[a]], 1);
+        }
+
+        // flow into the plant + dry >= 1
+        for (int k = 0; k < network.plants(); k++) {
+            MPConstraint irrigated = solver.makeConstraint(1, Double.POSITIVE_INFINITY);
+            for (int a = network.plantArcOffsets[k]; a < network.plantArcOffsets[k + 1]; a++) {
+                irrigated.setCoefficient(plantArcFlow[a], 1);
+            }
+            irrigated.setCoefficient(isDry[k], 1);
+        }
+
+        MPObjective objective = solver.objective();
+        for (int p = 0; p < network.pipes(); p++) {
+            objective.setCoefficient(isPipe[p], input.P());
+            if (isSprinkler[p] != null) {
+                objective.setCoefficient(isSprinkler[p], input.T());
+            }
+        }
+        for (MPVariable dry : isDry) {
+            objective.setCoefficient(dry, (double) N*N);
+        }
+        objective.setMinimization();
+        return objective;
+    }
+
+    /**
+     * flow <= capacity * present
+     */
+    private void addCapacity(MPSolver solver, MPVariable flow, MPVariable present, double capacity) {
+        MPConstraint constraint = solver.makeConstraint(Double.NEGATIVE_INFINITY, 0);
+        constraint.setCoefficient(flow, 1);
+        constraint.setCoefficient(present, -capacity);
+    }
+}
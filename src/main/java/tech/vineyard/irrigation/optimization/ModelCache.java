@@ -0,0 +1,179 @@
+package tech.vineyard.irrigation.optimization;
+
+import com.google.ortools.sat.CpModelProto;
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Directory of built models, keyed by a hash of the input and the model options.
+ * <p>
+ * Each file holds the model proto, with its cost bounds and warm start hints, the indices of the variables
+ * read back from a solution, and the bound of the LP relaxation. Files are touched on every hit, and the least recently used files are evicted
+ * once the directory exceeds its size limit, the last model stored being always kept.
+ */
+public class ModelCache {
+
+    private static final String EXTENSION = ".model";
+
+    private final Path directory;
+
+    /**
+     * size limit of the directory, in bytes
+     */
+    private final long maxSize;
+
+    public ModelCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    static class Entry {
+        final CpModelProto model;
+        final VariableIndex variableIndex;
+
+        /**
+         * cost of the warm start hinted in the model
+         */
+        final long warmStartCost;
+
+        /**
+         * bound of the LP relaxation, 0 when not computed
+         */
+        final long relaxationBound;
+
+        Entry(CpModelProto model, VariableIndex variableIndex, long warmStartCost, long relaxationBound) {
+            this.model = model;
+            this.variableIndex = variableIndex;
+            this.warmStartCost = warmStartCost;
+            this.relaxationBound = relaxationBound;
+        }
+    }
+
+    /**
+     * Hash of the grid, the costs and the model options.
+     */
+    static String key(Input input, ModelConfig modelConfig) {
+        StringBuilder description = new StringBuilder()
+                .append(input.N()).append(' ')
+                .append(input.C()).append(' ')
+                .append(input.P()).append(' ')
+                .append(input.T()).append(' ')
+                .append(input.Z()).append(' ')
+                .append(modelConfig).append(' ');
+        for (CellType[] row : input.cells()) {
+            for (CellType cellType : row) {
+                description.append(cellType.ordinal());
+            }
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(description.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the cached model, null on a miss or an unreadable file
+     */
+    Entry load(String key) {
+        Path path = path(key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            VariableIndex variableIndex = VariableIndex.read(in);
+            long warmStartCost = in.readLong();
+            long relaxationBound = in.readLong();
+            byte[] model = new byte[in.readInt()];
+            in.readFully(model);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(CpModelProto.parseFrom(model), variableIndex, warmStartCost, relaxationBound);
+        } catch (IOException e) {
+            log(String.format("Can not read cached model %s: %s", path, e.getMessage()));
+            return null;
+        }
+    }
+
+    void store(String key, Entry entry) {
+        Path path = path(key);
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temporaryPath))) {
+                entry.variableIndex.write(out);
+                out.writeLong(entry.warmStartCost);
+                out.writeLong(entry.relaxationBound);
+                byte[] model = entry.model.toByteArray();
+                out.writeInt(model.length);
+                out.write(model);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Remove the least recently used models until the directory fits in its size limit.
+     */
+    private void evict() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(ModelCache::lastModifiedTime).reversed())
+                    .collect(Collectors.toList());
+        }
+
+        // keep the most recently used models, at least the last one stored
+        long size = 0;
+        for (Path path : paths) {
+            long fileSize = Files.size(path);
+            if (size > 0 && size + fileSize > maxSize) {
+                Files.delete(path);
+            } else {
+                size += fileSize;
+            }
+        }
+    }
+
+    private Path path(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void log(String message) {
+        System.err.println(message);
+    }
+}
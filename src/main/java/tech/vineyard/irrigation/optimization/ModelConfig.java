@@ -0,0 +1,170 @@
+package tech.vineyard.irrigation.optimization;
+
+/**
+ * Options of the optimization model.
+ */
+public class ModelConfig {
+
+    public static final ModelConfig DEFAULT = new ModelConfig();
+
+    /**
+     * remove sprinkler candidates covering a strict subset of the plants of an adjacent candidate.
+     * Not exact: moving the sprinkler may require an extra pipe.
+     */
+    private boolean pruneDominatedSprinklers = false;
+
+    /**
+     * name the CP-SAT variables after their cell, for debugging the model.
+     * Formatting the names is a large part of the model construction time on big grids.
+     */
+    private boolean namedVariables = false;
+
+    /**
+     * one signed flow variable per pair of adjacent pipes, the reverse arc flow being its negation,
+     * instead of one flow variable per arc tied to its reverse by an equality.
+     */
+    private boolean compactFlow = false;
+
+    private Connectivity connectivity = Connectivity.FLOW;
+
+    /**
+     * with flow connectivity, cover each plant by a disjunction of its sprinklers, each sprinkler consuming a unit of flow,
+     * instead of one flow variable per sprinkler and plant.
+     */
+    private boolean setCover = false;
+
+    /**
+     * solve the LP relaxation before the search, for the bound of the solutions
+     */
+    private boolean relaxationBound = true;
+
+    /**
+     * leave the empty cells unreachable from the sources, the dead end pockets and the plants no candidate covers
+     * out of the network
+     */
+    private boolean reachabilityPresolve = true;
+
+    /**
+     * constraints implied by the optimal solutions: a sprinkler irrigates a plant.
+     */
+    private boolean redundantConstraints = false;
+
+    /**
+     * remove the equivalent flows and dry flags: a covered plant is not dry,
+     * and with flows it is irrigated by the first sprinkler covering it.
+     */
+    private boolean symmetryBreaking = false;
+
+    private ModelConfig() {
+    }
+
+    private ModelConfig(ModelConfig modelConfig) {
+        pruneDominatedSprinklers = modelConfig.pruneDominatedSprinklers;
+        namedVariables = modelConfig.namedVariables;
+        compactFlow = modelConfig.compactFlow;
+        connectivity = modelConfig.connectivity;
+        setCover = modelConfig.setCover;
+        relaxationBound = modelConfig.relaxationBound;
+        reachabilityPresolve = modelConfig.reachabilityPresolve;
+        redundantConstraints = modelConfig.redundantConstraints;
+        symmetryBreaking = modelConfig.symmetryBreaking;
+    }
+
+    public ModelConfig withPruneDominatedSprinklers(boolean pruneDominatedSprinklers) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.pruneDominatedSprinklers = pruneDominatedSprinklers;
+        return modelConfig;
+    }
+
+    public ModelConfig withNamedVariables(boolean namedVariables) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.namedVariables = namedVariables;
+        return modelConfig;
+    }
+
+    public ModelConfig withCompactFlow(boolean compactFlow) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.compactFlow = compactFlow;
+        return modelConfig;
+    }
+
+    public ModelConfig withConnectivity(Connectivity connectivity) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.connectivity = connectivity;
+        return modelConfig;
+    }
+
+    public ModelConfig withSetCover(boolean setCover) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.setCover = setCover;
+        return modelConfig;
+    }
+
+    public ModelConfig withRelaxationBound(boolean relaxationBound) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.relaxationBound = relaxationBound;
+        return modelConfig;
+    }
+
+    public ModelConfig withReachabilityPresolve(boolean reachabilityPresolve) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.reachabilityPresolve = reachabilityPresolve;
+        return modelConfig;
+    }
+
+    public ModelConfig withRedundantConstraints(boolean redundantConstraints) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.redundantConstraints = redundantConstraints;
+        return modelConfig;
+    }
+
+    public ModelConfig withSymmetryBreaking(boolean symmetryBreaking) {
+        ModelConfig modelConfig = new ModelConfig(this);
+        modelConfig.symmetryBreaking = symmetryBreaking;
+        return modelConfig;
+    }
+
+    public boolean pruneDominatedSprinklers() {
+        return pruneDominatedSprinklers;
+    }
+
+    public boolean namedVariables() {
+        return namedVariables;
+    }
+
+    public boolean compactFlow() {
+        return compactFlow;
+    }
+
+    public Connectivity connectivity() {
+        return connectivity;
+    }
+
+    public boolean setCover() {
+        return setCover;
+    }
+
+    public boolean relaxationBound() {
+        return relaxationBound;
+    }
+
+    public boolean reachabilityPresolve() {
+        return reachabilityPresolve;
+    }
+
+    public boolean redundantConstraints() {
+        return redundantConstraints;
+    }
+
+    public boolean symmetryBreaking() {
+        return symmetryBreaking;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("pruneDominatedSprinklers=%b namedVariables=%b compactFlow=%b connectivity=%s setCover=%b relaxationBound=%b"
+                        + " reachabilityPresolve=%b redundantConstraints=%b symmetryBreaking=%b",
+                pruneDominatedSprinklers, namedVariables, compactFlow, connectivity, setCover, relaxationBound,
+                reachabilityPresolve, redundantConstraints, symmetryBreaking);
+    }
+}
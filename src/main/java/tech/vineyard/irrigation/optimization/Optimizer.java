@@ -3,34 +3,35 @@ package tech.vineyard.irrigation.optimization;
 import com.google.ortools.Loader;
 import com.google.ortools.sat.BoolVar;
 import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpModelProto;
 import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverResponse;
 import com.google.ortools.sat.CpSolverStatus;
 import com.google.ortools.sat.IntVar;
 import com.google.ortools.sat.LinearArgument;
 import com.google.ortools.sat.LinearExpr;
+import com.google.ortools.sat.LinearExprBuilder;
 import com.google.ortools.sat.Literal;
 import tech.vineyard.irrigation.CellType;
 import tech.vineyard.irrigation.Input;
 import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
 import tech.vineyard.irrigation.optimization.model.Network;
-import tech.vineyard.irrigation.optimization.model.arcs.Arc;
-import tech.vineyard.irrigation.optimization.model.arcs.PipeArc;
-import tech.vineyard.irrigation.optimization.model.arcs.PlantArc;
-import tech.vineyard.irrigation.optimization.model.arcs.SourceArc;
-import tech.vineyard.irrigation.optimization.model.cells.Cell;
-import tech.vineyard.irrigation.optimization.model.cells.Pipe;
-import tech.vineyard.irrigation.optimization.model.cells.Plant;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
+import tech.vineyard.irrigation.optimization.model.ReachabilityPresolve;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+import tech.vineyard.irrigation.optimization.model.UnionFind;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
-public class Optimizer {
+public class Optimizer implements Solver {
     private static final int[][] OFFSETS = new int[][] {
             { -1, 0 },
             { 0, 1 },
@@ -41,453 +42,1228 @@ public class Optimizer {
     private final Input input;
     private final int N;
 
-    private final Network network = new Network();
+    private final SolverConfig solverConfig;
+    private final ModelConfig modelConfig;
+
+    /**
+     * cells of the model by cell id, null for the whole grid.
+     * The plants outside of the region are dry.
+     */
+    private final boolean[] region;
+
+    private Network network;
+
+    /**
+     * cells where a sprinkler can be installed, by cell id
+     */
+    private boolean[] sprinklerCandidates;
 
     private final CpSolver cpSolver = new CpSolver();
     private final CpModel cpModel = new CpModel();
 
-    private final Map<String, BoolVar> booleanVars = new HashMap<>();
-    private final Map<String, IntVar> intVars = new HashMap<>();
 
-    private final Map<Pipe, BoolVar> isPipe = new HashMap<>();
-    private final Map<Pipe, BoolVar> isSprinkler = new HashMap<>();
-    private final Map<Pipe, BoolVar> noConnectorsRequired = new HashMap<>();
-    private final Map<Pipe, BoolVar> isHorizontal = new HashMap<>();
-    private final Map<Pipe, BoolVar> isVertical = new HashMap<>();
-    private final Map<Pipe, IntVar> connectors = new HashMap<>();
+    /**
+     * Per pipe. isSprinkler is null when the pipe is not a sprinkler candidate.
+     */
+    private BoolVar[] isPipe;
+    private BoolVar[] isSprinkler;
+    private BoolVar[] noConnectorsRequired;
+    private BoolVar[] isHorizontal;
+    private BoolVar[] isVertical;
+    private IntVar[] connectors;
+
+    /**
+     * Flow out of the pipe, per arc of each type.
+     * With the compact flow, only the first arc of each pair of reverse arcs has a flow variable,
+     * the flow of the other arc being its negation.
+     */
+    private LinearArgument[] pipeArcFlow;
+    private IntVar[] pipeArcFlowVariables;
+    private BoolVar[] isPipeArcFlowPositive;
+    private IntVar[] sourceArcFlow;
+    private BoolVar[] isSourceArcFlowPositive;
+    private IntVar[] plantArcFlow;
+    private BoolVar[] isPlantArcFlowPositive;
+
+    /**
+     * Arborescence: whether the end of the arc is the parent of its pipe, per arc into a pipe,
+     * and the depth of each pipe in the tree rooted at the sources.
+     */
+    private BoolVar[] isPipeArcParent;
+    private BoolVar[] isSourceArcParent;
+    private IntVar[] depth;
+
+    /**
+     * Per plant
+     */
+    private BoolVar[] isDry;
 
-    private final Map<Arc, IntVar> pipeOutFlow = new HashMap<>();
-    private final Map<Arc, BoolVar> isPipeOutFlowPositive = new HashMap<>();
+    private BoolVar alwaysFalse;
+    private IntVar cost;
 
-    private final Map<Plant, BoolVar> isDry = new HashMap<>();
+    /**
+     * indices of the variables read back from a solution, loaded with a cached model
+     */
+    private VariableIndex variableIndex;
 
-    private final BoolVar[][] isPipeOrSource;
-    private BoolVar alwaysFalse;
+    private ModelCache modelCache;
+
+    /**
+     * constraints shared with the optimizers of other costs, built on the first share
+     */
+    private CpModelProto sharedModel;
+
+    /**
+     * whether the model is a copy of the model of another optimizer
+     */
+    private boolean copied;
+
+    /**
+     * solution of another solver hinting the search, instead of the Steiner heuristic
+     */
+    private Output warmStart;
+
+    /**
+     * bound of the LP relaxation, 0 when not computed
+     */
+    private long relaxationBound;
+
+    private final List<SolutionListener> listeners = new ArrayList<>();
+    private Output published;
+
+    private final SolveReport report = new SolveReport();
+
+    /**
+     * parse the search progress log for the worker behind each improvement
+     */
+    private boolean reportImprovements;
 
 
     public Optimizer(Input input) {
+        this(input, SolverConfig.DEFAULT);
+    }
+
+    public Optimizer(Input input, double timeLimit) {
+        this(input, SolverConfig.DEFAULT.withTimeLimit(timeLimit));
+    }
+
+    public Optimizer(Input input, SolverConfig solverConfig) {
+        this(input, solverConfig, ModelConfig.DEFAULT);
+    }
+
+    public Optimizer(Input input, SolverConfig solverConfig, ModelConfig modelConfig) {
+        this(input, solverConfig, modelConfig, null);
+    }
+
+    Optimizer(Input input, SolverConfig solverConfig, ModelConfig modelConfig, boolean[] region) {
         this.input = input;
+        this.solverConfig = solverConfig;
+        this.modelConfig = modelConfig;
+        this.region = region;
         N = input.N();
+    }
 
-        isPipeOrSource = new BoolVar[N][N];
+    /**
+     * Register a listener notified of every improving solution during the search.
+     */
+    public void addListener(SolutionListener listener) {
+        listeners.add(listener);
     }
 
+    /**
+     * Reuse the model built for the same input and model options by a previous run, or store it after building it.
+     * Models relaxing connectivity, models of a region and models with a warm start are not cached,
+     * the cached hints being those of the Steiner heuristic.
+     */
+    public void setModelCache(ModelCache modelCache) {
+        this.modelCache = modelCache;
+    }
+
+    /**
+     * Start the search from a solution found by another solver, instead of the Steiner heuristic.
+     */
+    public void setWarmStart(Output warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    /**
+     * List the improvements in the report, logging the search progress.
+     */
+    public void setReportImprovements(boolean reportImprovements) {
+        this.reportImprovements = reportImprovements;
+    }
+
+    /**
+     * Optimizer of the same grid under other costs, reusing the network, the variables and the constraints of this model.
+     * Only the cost is built again. The model is built on the first call.
+     * The dead end pockets peeled when connectors cost no more than pipes stay out of the network,
+     * so connectors must not cost more than pipes unless this model was built with such costs.
+     */
+    synchronized Optimizer withCosts(int C, int P, int T) {
+        model();
+        if (sharedModel == null) {
+            sharedModel = cpModel.model();
+        }
+
+        Optimizer optimizer = new Optimizer(new Input(N, C, P, T, input.Z(), input.cells()), solverConfig, modelConfig, region);
+        optimizer.cpModel.getBuilder().mergeFrom(sharedModel);
+        optimizer.copied = true;
+        optimizer.network = network;
+        optimizer.sprinklerCandidates = sprinklerCandidates;
+        optimizer.isPipe = isPipe;
+        optimizer.isSprinkler = isSprinkler;
+        optimizer.noConnectorsRequired = noConnectorsRequired;
+        optimizer.isHorizontal = isHorizontal;
+        optimizer.isVertical = isVertical;
+        optimizer.connectors = connectors;
+        optimizer.pipeArcFlow = pipeArcFlow;
+        optimizer.pipeArcFlowVariables = pipeArcFlowVariables;
+        optimizer.isPipeArcFlowPositive = isPipeArcFlowPositive;
+        optimizer.sourceArcFlow = sourceArcFlow;
+        optimizer.isSourceArcFlowPositive = isSourceArcFlowPositive;
+        optimizer.plantArcFlow = plantArcFlow;
+        optimizer.isPlantArcFlowPositive = isPlantArcFlowPositive;
+        optimizer.isPipeArcParent = isPipeArcParent;
+        optimizer.isSourceArcParent = isSourceArcParent;
+        optimizer.depth = depth;
+        optimizer.isDry = isDry;
+        optimizer.alwaysFalse = alwaysFalse;
+        return optimizer;
+    }
+
+    /**
+     * Statistics of the last solve.
+     */
+    public SolveReport report() {
+        return report;
+    }
+
+    /**
+     * Build the network, the variables and the constraints of the model, without the cost.
+     */
+    public CpModel model() {
+        if (network == null) {
+            buildNetwork();
+            buildVariables();
+            buildModel();
+        }
+        return cpModel;
+    }
+
+    @Override
     public Output solution() throws IOException {
-        buildNetwork();
-        buildVariables();
-        buildModel();
-        buildCost();
-        optimizeCost();
-        new IrrigationGraphSerializer(network, cpSolver, isPipe, isSprinkler, pipeOutFlow)
-                .buildGraph();
+        boolean cached = modelCache != null && region == null && warmStart == null
+                && modelConfig.connectivity() != Connectivity.LAZY;
+        String key = cached ? ModelCache.key(input, modelConfig) : null;
+        if (cached) {
+            ModelCache.Entry entry = modelCache.load(key);
+            if (entry != null) {
+                return cachedSolution(entry);
+            }
+        }
+
+        model();
+
+        Output warmStart = this.warmStart != null
+                ? this.warmStart
+                : new SteinerHeuristic(input, sprinklerCandidates).solution();
+        log(String.format("Warm start cost is %d", warmStart.cost()));
+        publish(warmStart, 0);
+
+        buildCost(warmStart.cost());
+        if (modelConfig.relaxationBound()) {
+            buildRelaxationBound();
+        }
+        buildHints(warmStart);
+        if (cached) {
+            modelCache.store(key, new ModelCache.Entry(cpModel.model(), variableIndex, warmStart.cost(), relaxationBound));
+        }
 
+        Output output = modelConfig.connectivity() == Connectivity.LAZY
+                ? optimizeWithCuts()
+                : searchOutput(optimizeCost(solverConfig));
+
+        // the graph of a region is drawn with the whole grid, and copied models solve concurrently
+        if (region == null && !copied) {
+            new IrrigationGraphSerializer(network, output, new FlowAssignment(network, output))
+                    .buildGraph();
+        }
+        return output;
+    }
+
+    /**
+     * Solve a cached model, with its cost bounds and warm start hints, without building the network.
+     */
+    private Output cachedSolution(ModelCache.Entry entry) {
+        log("Loaded cached model");
+        Loader.loadNativeLibraries();
+        cpModel.getBuilder().mergeFrom(entry.model);
+        variableIndex = entry.variableIndex;
+        relaxationBound = entry.relaxationBound;
+
+        // the warm start is the hinted solution
+        Map<Integer, Long> hints = new HashMap<>();
+        for (int k = 0; k < entry.model.getSolutionHint().getVarsCount(); k++) {
+            hints.put(entry.model.getSolutionHint().getVars(k), entry.model.getSolutionHint().getValues(k));
+        }
         boolean[][] p = new boolean[N][N];
         boolean[][] s = new boolean[N][N];
+        loadPipeBoolean(p, variableIndex.isPipe, index -> hints.getOrDefault(index, 0L) != 0);
+        loadPipeBoolean(s, variableIndex.isSprinkler, index -> hints.getOrDefault(index, 0L) != 0);
+        publish(new Output(p, s, SolutionStatus.FEASIBLE, entry.warmStartCost, relaxationBound), 0);
+
+        return searchOutput(optimizeCost(solverConfig));
+    }
+
+    /**
+     * Solve again with the pipes and sprinklers of the cells outside the window fixed to the incumbent.
+     * The model is built on the first call and reused for every following window.
+     *
+     * @return the best solution of the neighbourhood, the incumbent when no better solution is found in time
+     */
+    public Output neighbourhoodSolution(Output incumbent, boolean[][] window, double timeLimit) {
+        if (modelConfig.connectivity() == Connectivity.LAZY) {
+            throw new IllegalStateException("Can not solve a neighbourhood with lazy connectivity");
+        }
+
+        model();
+        if (cost == null) {
+            buildCost(incumbent.cost());
+        }
+        cpModel.clearHints();
+        buildHints(incumbent);
+
+        List<BoolVar> fixed = new ArrayList<>();
+        for (int p = 0; p < network.pipes(); p++) {
+            int i = network.row(network.pipeCells[p]);
+            int j = network.column(network.pipeCells[p]);
+            if (!window[i][j]) {
+                fix(isPipe[p], incumbent.pipes()[i][j], fixed);
+                if (isSprinkler[p] != null) {
+                    fix(isSprinkler[p], incumbent.sprinklers()[i][j], fixed);
+                }
+            }
+        }
 
-        loadPipeBoolean(p, isPipe);
-        loadPipeBoolean(s, isSprinkler);
+        CpSolverStatus status = optimizeCost(solverConfig.withTimeLimit(timeLimit));
+        for (BoolVar boolVar : fixed) {
+            setDomain(boolVar, 0, 1);
+        }
+
+        if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE || cpSolver.objectiveValue() >= incumbent.cost()) {
+            return incumbent;
+        }
+        // the bound of the neighbourhood does not hold for the whole grid
+        Output output = solverOutput(SolutionStatus.FEASIBLE);
+        return new Output(output.pipes(), output.sprinklers(), SolutionStatus.FEASIBLE, output.cost(), incumbent.bound());
+    }
 
-        return new Output(p, s);
+    private void fix(BoolVar boolVar, boolean value, List<BoolVar> fixed) {
+        setDomain(boolVar, value ? 1 : 0, value ? 1 : 0);
+        fixed.add(boolVar);
+    }
+
+    private void setDomain(BoolVar boolVar, long lb, long ub) {
+        cpModel.getBuilder()
+                .getVariablesBuilder(boolVar.getIndex())
+                .clearDomain()
+                .addDomain(lb)
+                .addDomain(ub);
     }
 
     private void buildNetwork() {
-        CellType[][] gridTypes = input.cells();
-        Cell[][] grid = new Cell[N][N];
-
-        // create nodes
-        IntStream.range(0, N)
-                .forEach(i -> IntStream.range(0, N)
-                        .forEach(j -> grid[i][j] = network.createCell(gridTypes[i][j], i, j)));
-
-        // create arcs
-        // source -> pipe OR pipe -> pipe
-        IntStream.range(0, N)
-                .forEach(i -> IntStream.range(0, N)
-                        .filter(j -> gridTypes[i][j] == CellType.SOURCE || gridTypes[i][j] == CellType.EMPTY)
-                        .forEach(j -> Arrays.stream(OFFSETS)
-                                .filter(n -> validNeighbor(i + n[0], j + n[1]) &&
-                                             gridTypes[i + n[0]][j + n[1]] == CellType.EMPTY)
-                                .forEach(n -> network.createArc(grid[i][j], grid[i + n[0]][j + n[1]]))));
-        // pipe -> plant
-        IntStream.range(0, N)
-                .forEach(i -> IntStream.range(0, N)
-                        .filter(j -> gridTypes[i][j] == CellType.PLANT)
-                        .forEach(j -> IntStream.range(0, N)
-                                .forEach(i2 -> IntStream.range(0, N)
-                                        .filter(j2 -> gridTypes[i2][j2] == CellType.EMPTY &&
-                                                cover(i, j, i2, j2))
-                                        .forEach(j2 -> network.createArc(grid[i2][j2], grid[i][j])))));
+        SprinklerPresolve sprinklerPresolve = new SprinklerPresolve(input, modelConfig.pruneDominatedSprinklers());
+        sprinklerCandidates = sprinklerPresolve.candidates();
+        log(String.format("Removed %d sprinkler candidates", sprinklerPresolve.removed()));
+
+        boolean[] cells = region;
+        if (modelConfig.reachabilityPresolve()) {
+            ReachabilityPresolve reachabilityPresolve = new ReachabilityPresolve(input, sprinklerCandidates, region);
+            cells = reachabilityPresolve.cells();
+            log(String.format("Removed %d empty cells and %d plants", reachabilityPresolve.removedCells(), reachabilityPresolve.removedPlants()));
+        }
+
+        if (cells == null) {
+            network = new NetworkBuilder(input, sprinklerCandidates).build();
+        } else {
+            for (int cell = 0; cell < N*N; cell++) {
+                sprinklerCandidates[cell] &= cells[cell];
+            }
+            network = new NetworkBuilder(input, sprinklerCandidates, cells).build();
+        }
     }
 
     private void buildVariables() {
         Loader.loadNativeLibraries();
-        alwaysFalse = newBoolVar(alwaysFalseVariable());
-
-        IntStream.range(0, N)
-                .forEach(i -> IntStream.range(0, N)
-                        .forEach(j -> isPipeOrSource[i][j] = newBoolVar(isPipeOrSourceVariable(i, j))));
-
-        network.pipeAdjacency
-                .keySet()
-                .forEach(pipe -> {
-                    isPipe.put(pipe, newBoolVar(isPipeVariable(pipe)));
-                    isSprinkler.put(pipe, newBoolVar(isSprinklerVariable(pipe)));
-                    noConnectorsRequired.put(pipe, newBoolVar(noConnectorsRequiredVariable(pipe)));
-                    isHorizontal.put(pipe, newBoolVar(isHorizontalVariable(pipe)));
-                    isVertical.put(pipe, newBoolVar(isVerticalVariable(pipe)));
-                    connectors.put(pipe, newIntVar(0, 4, connectorVariable(pipe)));
-                });
-
-        network.plantAdjacency
-                .keySet()
-                .forEach(plant -> isDry.put(plant, newBoolVar(isDryVariable(plant))));
-
-        int plants = network.plantAdjacency
-                .size();
-
-        network.sourceAdjacency
-                .values()
-                .stream()
-                .flatMap(List::stream)
-                .forEach(sourceArc -> {
-                    pipeOutFlow.put(sourceArc, newIntVar(-plants, 0, flowVariable(sourceArc)));
-                    isPipeOutFlowPositive.put(sourceArc, newBoolVar(isFlowPositiveVariable(sourceArc)));
-                });
-
-        network.pipeAdjacency
-                .values()
-                .stream()
-                .flatMap(List::stream)
-                .forEach(pipeArc -> {
-                    pipeOutFlow.put(pipeArc, newIntVar(-plants, plants, flowVariable(pipeArc)));
-                    isPipeOutFlowPositive.put(pipeArc, newBoolVar(isFlowPositiveVariable(pipeArc)));
-                });
-
-        network.plantAdjacency
-                .values()
-                .stream()
-                .flatMap(List::stream)
-                .forEach(plantArc -> {
-                    pipeOutFlow.put(plantArc, newIntVar(0, 1, flowVariable(plantArc)));
-                    isPipeOutFlowPositive.put(plantArc, newBoolVar(isFlowPositiveVariable(plantArc)));
-                });
+        alwaysFalse = newBoolVar(this::alwaysFalseVariable);
+
+        int pipes = network.pipes();
+        isPipe = new BoolVar[pipes];
+        isSprinkler = new BoolVar[pipes];
+        noConnectorsRequired = new BoolVar[pipes];
+        isHorizontal = new BoolVar[pipes];
+        isVertical = new BoolVar[pipes];
+        connectors = new IntVar[pipes];
+        for (int p = 0; p < pipes; p++) {
+            int cell = network.pipeCells[p];
+            isPipe[p] = newBoolVar(() -> isPipeVariable(cell));
+            noConnectorsRequired[p] = newBoolVar(() -> noConnectorsRequiredVariable(cell));
+            isHorizontal[p] = newBoolVar(() -> isHorizontalVariable(cell));
+            isVertical[p] = newBoolVar(() -> isVerticalVariable(cell));
+            connectors[p] = newIntVar(0, 4, () -> connectorVariable(cell));
+            if (network.sprinklerCandidates[p]) {
+                isSprinkler[p] = newBoolVar(() -> isSprinklerVariable(cell));
+            }
+        }
+
+        int plants = network.plants();
+        isDry = new BoolVar[plants];
+        for (int k = 0; k < plants; k++) {
+            int cell = network.plantCells[k];
+            isDry[k] = newBoolVar(() -> isDryVariable(cell));
+        }
+
+        switch (modelConfig.connectivity()) {
+            case FLOW:
+                buildFlowVariables();
+                break;
+            case ARBORESCENCE:
+                buildArborescenceVariables();
+                break;
+            case LAZY:
+                break;
+        }
+    }
+
+    private void buildFlowVariables() {
+        int plants = flowCapacity();
+
+        sourceArcFlow = new IntVar[network.sourceArcs()];
+        isSourceArcFlowPositive = new BoolVar[network.sourceArcs()];
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            int start = network.sourceCells[network.sourceArcSources[a]];
+            int end = network.pipeCells[network.sourceArcPipes[a]];
+            sourceArcFlow[a] = newIntVar(-plants, 0, () -> flowVariable(start, end));
+            isSourceArcFlowPositive[a] = newBoolVar(() -> isFlowPositiveVariable(start, end));
+        }
+
+        pipeArcFlow = new LinearArgument[network.pipeArcs()];
+        pipeArcFlowVariables = new IntVar[network.pipeArcs()];
+        isPipeArcFlowPositive = new BoolVar[network.pipeArcs()];
+        for (int a = 0; a < network.pipeArcs(); a++) {
+            int start = network.pipeCells[network.pipeArcStarts[a]];
+            int end = network.pipeCells[network.pipeArcEnds[a]];
+            if (!modelConfig.compactFlow() || a < network.reverseArc(a)) {
+                pipeArcFlowVariables[a] = newIntVar(-plants, plants, () -> flowVariable(start, end));
+                pipeArcFlow[a] = pipeArcFlowVariables[a];
+            }
+            isPipeArcFlowPositive[a] = newBoolVar(() -> isFlowPositiveVariable(start, end));
+        }
+        if (modelConfig.compactFlow()) {
+            for (int a = 0; a < network.pipeArcs(); a++) {
+                if (pipeArcFlow[a] == null) {
+                    pipeArcFlow[a] = LinearExpr.term(pipeArcFlow[network.reverseArc(a)], -1);
+                }
+            }
+        }
+
+        if (!plantFlows()) {
+            return;
+        }
+        plantArcFlow = new IntVar[network.plantArcs()];
+        isPlantArcFlowPositive = new BoolVar[network.plantArcs()];
+        for (int a = 0; a < network.plantArcs(); a++) {
+            int start = network.pipeCells[network.plantArcPipes[a]];
+            int end = network.plantCells[network.plantArcPlants[a]];
+            plantArcFlow[a] = newIntVar(0, 1, () -> flowVariable(start, end));
+            isPlantArcFlowPositive[a] = newBoolVar(() -> isFlowPositiveVariable(start, end));
+        }
+    }
+
+    private void buildArborescenceVariables() {
+        depth = new IntVar[network.pipes()];
+        for (int p = 0; p < network.pipes(); p++) {
+            int cell = network.pipeCells[p];
+            depth[p] = newIntVar(1, network.pipes(), () -> depthVariable(cell));
+        }
+
+        isSourceArcParent = new BoolVar[network.sourceArcs()];
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            int parent = network.sourceCells[network.sourceArcSources[a]];
+            int child = network.pipeCells[network.sourceArcPipes[a]];
+            isSourceArcParent[a] = newBoolVar(() -> isParentVariable(parent, child));
+        }
+
+        isPipeArcParent = new BoolVar[network.pipeArcs()];
+        for (int a = 0; a < network.pipeArcs(); a++) {
+            int parent = network.pipeCells[network.pipeArcEnds[a]];
+            int child = network.pipeCells[network.pipeArcStarts[a]];
+            isPipeArcParent[a] = newBoolVar(() -> isParentVariable(parent, child));
+        }
     }
 
     private void buildModel() {
         cpModel.addEquality(alwaysFalse, 0);
 
-        network.sourceAdjacency
-                .keySet()
-                .forEach(source -> cpModel.addEquality(isPipeOrSource[source.i()][source.j()], 1));
-
-        network.pipeAdjacency
-                .keySet()
-                .forEach(pipe -> cpModel.addEquality(isPipeOrSource[pipe.i()][pipe.j()], isPipe.get(pipe)));
-
-        network.sourceAdjacency
-                .values()
-                .stream()
-                .flatMap(List::stream)
-                .forEach(arc ->
-                        // the flow from source to pipe is >= 0
-                        cpModel.addLessOrEqual(pipeOutFlow.get(arc), 0)
-                );
-
-        // the sum of the source flows is <= plants
-        IntVar[] sourceFlows = network.sourceAdjacency
-                .values()
-                .stream()
-                .flatMap(List::stream)
-                .map(pipeOutFlow::get)
-                .toArray(IntVar[]::new);
-        cpModel.addGreaterOrEqual(LinearExpr.sum(sourceFlows), -network.plantAdjacency.size());
-
-        pipeOutFlow.forEach((arc, arcFlow) -> {
-                // flow is >= 0 <= isFlowPositive is true
-                cpModel.addGreaterOrEqual(arcFlow, 0)
-                        .onlyEnforceIf(isPipeOutFlowPositive.get(arc));
-        });
-
-        network.pipeAdjacency
-                .forEach((pipe, pipeArcs) -> {
-                    List<Arc> allPipeArcs = Stream.concat(
-                                pipeArcs.stream(),
-                                Stream.concat(
-                                        network.sourceArcs(pipe).stream(),
-                                        network.plantArcs(pipe).stream()))
-                            .collect(Collectors.toList());
-
-                    // the sum of the flows out of the pipe is 0
-                    LinearArgument[] outPipeFlow = allPipeArcs
-                            .stream()
-                            .map(pipeOutFlow::get)
-                            .toArray(LinearArgument[]::new);
-
-                    LinearExpr flowSum = LinearExpr.sum(outPipeFlow);
-                    cpModel.addEquality(flowSum, 0);
-
-                    // at most one flow out of the pipe is < 0
-                    Literal[] negativeFlow = allPipeArcs.stream()
-                            .map(isPipeOutFlowPositive::get)
-                            .map(BoolVar::not)
-                            .toArray(Literal[]::new);
-                    LinearExpr negativeFlowSum = LinearExpr.sum(negativeFlow);
-                    cpModel.addLessOrEqual(negativeFlowSum, 1);
-
-                    // there is non 0 flow <=> pipe is present
-                    cpModel.addGreaterThan(negativeFlowSum, 0)
-                            .onlyEnforceIf(isPipe.get(pipe));
-                    cpModel.addEquality(negativeFlowSum, 0)
-                            .onlyEnforceIf(isPipe.get(pipe).not());
-
-                    // the reverse arc flow is the opposite of the direct arc flow
-                    pipeArcs.forEach(pipeArc -> cpModel.addEquality(LinearExpr.newBuilder()
-                                    .addTerm(this.pipeOutFlow.get(pipeArc), 1)
-                                    .addTerm(this.pipeOutFlow.get(network.reverseArc(pipeArc)), 1)
-                                    .build(), 0));
-
-                    // number of pipe connectors
-                    IntVar pipeConnectors = connectors.get(pipe);
-                    BoolVar pipeNoConnectorsRequired = noConnectorsRequired.get(pipe);
-
-                    BoolVar pipeIsHorizontal = isHorizontal.get(pipe);
-                    BoolVar pipeIsVertical = isVertical.get(pipe);
-
-                    BoolVar[] horizontalPipeOrSource = Arrays.stream(OFFSETS)
-                            .filter(offset -> offset[1] == 0)
-                            .map(offset -> isPipeOrSource(pipe.i() + offset[0], pipe.j() + offset[1]))
-                            .toArray(BoolVar[]::new);
-
-                    BoolVar[] verticalPipeOrSource = Arrays.stream(OFFSETS)
-                            .filter(offset -> offset[0] == 0)
-                            .map(offset -> isPipeOrSource(pipe.i() + offset[0], pipe.j() + offset[1]))
-                            .toArray(BoolVar[]::new);
-
-                    Literal[] horizontalQuery = Stream.concat(
-                            Arrays.stream(horizontalPipeOrSource),
-                            Arrays.stream(verticalPipeOrSource)
-                                    .map(BoolVar::not)
-                    ).toArray(Literal[]::new);
-                    cpModel.addBoolAnd(horizontalQuery)
-                            .onlyEnforceIf(pipeIsHorizontal);
-
-                    Literal[] verticalQuery = Stream.concat(
-                            Arrays.stream(verticalPipeOrSource),
-                            Arrays.stream(horizontalPipeOrSource)
-                                    .map(BoolVar::not)
-                    ).toArray(Literal[]::new);
-                    cpModel.addBoolAnd(verticalQuery)
-                            .onlyEnforceIf(pipeIsVertical);
-
-                    // horizontal || vertical <= pipeNoConnectorsRequired
-                    cpModel.addBoolOr(new Literal[] {
-                            pipeIsHorizontal,
-                            pipeIsVertical
-                    }).onlyEnforceIf(pipeNoConnectorsRequired);
-
-                    BoolVar[] neighborPipes = pipeArcs
-                            .stream()
-                            .map(pipArc -> isPipe.get(pipArc.end))
-                            .toArray(BoolVar[]::new);
-                    cpModel.addEquality(pipeConnectors, LinearExpr.sum(neighborPipes))
-                            .onlyEnforceIf(pipeNoConnectorsRequired.not());
-                    cpModel.addEquality(pipeConnectors, 0)
-                            .onlyEnforceIf(pipeNoConnectorsRequired);
-                });
-
-        network.plantAdjacency
-                .forEach((plant, plantArcs) -> {
-                    plantArcs.forEach(arc -> {
-                                Pipe pipe = arc.start;
-
-                                // the flow from pipe to plant is >= 0 <= sprinkler is on
-                                cpModel.addGreaterOrEqual(pipeOutFlow.get(arc), 0)
-                                        .onlyEnforceIf(isSprinkler.get(pipe));
-
-                                // 0 flow from pipe to plant <= sprinkler is off
-                                cpModel.addEquality(pipeOutFlow.get(arc), 0)
-                                        .onlyEnforceIf(isSprinkler.get(pipe).not());
-                            });
-
-                    // the sum of the flows into the plant is > 0 <= plant is not dry
-                    IntVar[] plantFlow = plantArcs.stream()
-                            .map(pipeOutFlow::get)
-                            .toArray(IntVar[]::new);
-                    LinearExpr flowSum = LinearExpr.sum(plantFlow);
-                    cpModel.addGreaterThan(flowSum, 0)
-                            .onlyEnforceIf(isDry.get(plant).not());
-                });
+        for (int p = 0; p < network.pipes(); p++) {
+            buildConnectors(p);
+        }
 
         // sprinkler off <= pipe off
-        network.pipeAdjacency
-                .keySet()
-                .forEach(pipe -> cpModel.addEquality(isSprinkler.get(pipe), 0)
-                        .onlyEnforceIf(isPipe.get(pipe).not()));
+        for (int p = 0; p < network.pipes(); p++) {
+            if (isSprinkler[p] != null) {
+                cpModel.addEquality(isSprinkler[p], 0)
+                        .onlyEnforceIf(isPipe[p].not());
+            }
+        }
+
+        switch (modelConfig.connectivity()) {
+            case FLOW:
+                buildFlowModel();
+                break;
+            case ARBORESCENCE:
+                buildArborescenceModel();
+                break;
+            case LAZY:
+                buildCoverage();
+                break;
+        }
+
+        if (modelConfig.redundantConstraints()) {
+            buildRedundantConstraints();
+        }
     }
 
-    private void buildCost() {
-        LinearExpr pipeSum = LinearExpr.sum(isPipe.values()
-                .stream()
-                .toArray(BoolVar[]::new));
+    /**
+     * Constraints satisfied by every optimal solution, pruning the search without removing the optimum.
+     * An isolated pipe may be optimal, straightening its neighbours for less than their connectors,
+     * so pipes need no present neighbour.
+     */
+    private void buildRedundantConstraints() {
+        for (int p = 0; p < network.pipes(); p++) {
+            if (isSprinkler[p] == null) {
+                continue;
+            }
+            if (plantFlows() && !modelConfig.symmetryBreaking()) {
+                // a sprinkler sends flow to a plant, otherwise removing it is cheaper
+                LinearExprBuilder flowSum = LinearExpr.newBuilder();
+                for (int k = network.pipePlantArcOffsets[p]; k < network.pipePlantArcOffsets[p + 1]; k++) {
+                    flowSum.add(plantArcFlow[network.pipePlantArcs[k]]);
+                }
+                cpModel.addGreaterOrEqual(flowSum, 1)
+                        .onlyEnforceIf(isSprinkler[p]);
+            } else {
+                // a sprinkler covers a plant that is not dry
+                Literal[] wetPlants = new Literal[network.pipePlantArcOffsets[p + 1] - network.pipePlantArcOffsets[p] + 1];
+                for (int k = network.pipePlantArcOffsets[p]; k < network.pipePlantArcOffsets[p + 1]; k++) {
+                    wetPlants[k - network.pipePlantArcOffsets[p]] = isDry[network.plantArcPlants[network.pipePlantArcs[k]]].not();
+                }
+                wetPlants[wetPlants.length - 1] = isSprinkler[p].not();
+                cpModel.addBoolOr(wetPlants);
+            }
+        }
+    }
 
-        LinearExpr sprinklerSum = LinearExpr.sum(isSprinkler.values()
-                .stream()
-                .toArray(BoolVar[]::new));
+    private void buildFlowModel() {
+        // the flow from source to pipe is >= 0
+        for (IntVar arcFlow : sourceArcFlow) {
+            cpModel.addLessOrEqual(arcFlow, 0);
+        }
 
-        LinearExpr connectorSum = LinearExpr.sum(connectors.values()
-                .stream()
-                .toArray(IntVar[]::new));
+        // the sum of the source flows is <= plants, or sprinkler candidates with a set cover
+        cpModel.addGreaterOrEqual(LinearExpr.sum(sourceArcFlow), -flowCapacity());
 
-        LinearExpr drySum = LinearExpr.sum(isDry.values()
-                .stream()
-                .toArray(BoolVar[]::new));
+        // flow is >= 0 <= isFlowPositive is true
+        addFlowPositive(sourceArcFlow, isSourceArcFlowPositive);
+        addFlowPositive(pipeArcFlow, isPipeArcFlowPositive);
+        if (plantFlows()) {
+            addFlowPositive(plantArcFlow, isPlantArcFlowPositive);
+        }
 
-        // cost variable
-        IntVar cost = newIntVar(0, maxCost(), costVariable());
-        LinearExpr costExpression = LinearExpr.newBuilder()
-                .addTerm(pipeSum, input.P())
-                .addTerm(sprinklerSum, input.T())
-                .addTerm(connectorSum, input.C())
-                .addTerm(drySum, N*N)
-                .build();
+        for (int p = 0; p < network.pipes(); p++) {
+            buildPipeFlow(p);
+        }
 
-        cpModel.addEquality(cost, costExpression);
+        if (!plantFlows()) {
+            buildCoverage();
+            return;
+        }
+
+        for (int k = 0; k < network.plants(); k++) {
+            LinearExprBuilder flowSum = LinearExpr.newBuilder();
+            for (int a = network.plantArcOffsets[k]; a < network.plantArcOffsets[k + 1]; a++) {
+                BoolVar sprinkler = isSprinkler[network.plantArcPipes[a]];
+
+                // the flow from pipe to plant is >= 0 <= sprinkler is on
+                cpModel.addGreaterOrEqual(plantArcFlow[a], 0)
+                        .onlyEnforceIf(sprinkler);
+
+                // 0 flow from pipe to plant <= sprinkler is off
+                cpModel.addEquality(plantArcFlow[a], 0)
+                        .onlyEnforceIf(sprinkler.not());
+
+                flowSum.add(plantArcFlow[a]);
+            }
+
+            // the sum of the flows into the plant is > 0 <= plant is not dry
+            cpModel.addGreaterThan(flowSum, 0)
+                    .onlyEnforceIf(isDry[k].not());
+
+            if (modelConfig.symmetryBreaking()) {
+                buildFirstSprinklerFlow(k);
+            }
+        }
+    }
+
+    /**
+     * The plant is irrigated by the first sprinkler covering it, and is dry when no sprinkler covers it,
+     * every sprinkler on being connected to a source.
+     */
+    private void buildFirstSprinklerFlow(int k) {
+        int cell = network.plantCells[k];
+        Literal covered = alwaysFalse;
+        for (int a = network.plantArcOffsets[k]; a < network.plantArcOffsets[k + 1]; a++) {
+            BoolVar sprinkler = isSprinkler[network.plantArcPipes[a]];
+
+            // flow from the sprinkler <=> sprinkler is on and no previous sprinkler covers the plant
+            cpModel.addEquality(plantArcFlow[a], 0)
+                    .onlyEnforceIf(covered);
+            cpModel.addEquality(plantArcFlow[a], 1)
+                    .onlyEnforceIf(new Literal[] { sprinkler, covered.not() });
+
+            // covered by this sprinkler or a previous one
+            int r = a - network.plantArcOffsets[k];
+            BoolVar next = newBoolVar(() -> isCoveredVariable(cell, r));
+            cpModel.addBoolOr(new Literal[] { covered, sprinkler })
+                    .onlyEnforceIf(next);
+            cpModel.addImplication(covered, next);
+            cpModel.addImplication(sprinkler, next);
+            covered = next;
+        }
+
+        // dry <=> no sprinkler covers the plant
+        cpModel.addBoolXor(new Literal[] { isDry[k], covered });
+    }
+
+    private void buildPipeFlow(int p) {
+        // the sum of the flows out of the pipe is 0
+        // and, counting the arcs with a negative flow out of the pipe, at most one flow is < 0
+        LinearExprBuilder flowSum = LinearExpr.newBuilder();
+        LinearExprBuilder negativeFlowSum = LinearExpr.newBuilder();
+        for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+            flowSum.add(pipeArcFlow[a]);
+            negativeFlowSum.add(1).addTerm(isPipeArcFlowPositive[a], -1);
+        }
+        for (int k = network.pipeSourceArcOffsets[p]; k < network.pipeSourceArcOffsets[p + 1]; k++) {
+            int a = network.pipeSourceArcs[k];
+            flowSum.add(sourceArcFlow[a]);
+            negativeFlowSum.add(1).addTerm(isSourceArcFlowPositive[a], -1);
+        }
+        if (plantFlows()) {
+            for (int k = network.pipePlantArcOffsets[p]; k < network.pipePlantArcOffsets[p + 1]; k++) {
+                int a = network.pipePlantArcs[k];
+                flowSum.add(plantArcFlow[a]);
+                negativeFlowSum.add(1).addTerm(isPlantArcFlowPositive[a], -1);
+            }
+        } else if (isSprinkler[p] != null) {
+            // a sprinkler consumes a unit of flow
+            flowSum.add(isSprinkler[p]);
+        }
+        cpModel.addEquality(flowSum, 0);
+        cpModel.addLessOrEqual(negativeFlowSum, 1);
+
+        // there is non 0 flow <=> pipe is present
+        cpModel.addGreaterThan(negativeFlowSum, 0)
+                .onlyEnforceIf(isPipe[p]);
+        cpModel.addEquality(negativeFlowSum, 0)
+                .onlyEnforceIf(isPipe[p].not());
+
+        // the reverse arc flow is the opposite of the direct arc flow, once per pair of arcs
+        for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+            int reverseArc = network.reverseArc(a);
+            if (!modelConfig.compactFlow() && a < reverseArc) {
+                cpModel.addEquality(LinearExpr.newBuilder()
+                        .addTerm(pipeArcFlow[a], 1)
+                        .addTerm(pipeArcFlow[reverseArc], 1)
+                        .build(), 0);
+            }
+        }
+    }
+
+    private void buildArborescenceModel() {
+        for (int p = 0; p < network.pipes(); p++) {
+            // a present pipe has exactly one parent, an absent pipe has none
+            LinearExprBuilder parents = LinearExpr.newBuilder();
+            for (int k = network.pipeSourceArcOffsets[p]; k < network.pipeSourceArcOffsets[p + 1]; k++) {
+                parents.add(isSourceArcParent[network.pipeSourceArcs[k]]);
+            }
+            for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+                parents.add(isPipeArcParent[a]);
+
+                // the parent pipe is present and closer to the sources
+                int parent = network.pipeArcEnds[a];
+                cpModel.addImplication(isPipeArcParent[a], isPipe[parent]);
+                cpModel.addGreaterOrEqual(LinearExpr.newBuilder()
+                                .addTerm(depth[p], 1)
+                                .addTerm(depth[parent], -1)
+                                .build(), 1)
+                        .onlyEnforceIf(isPipeArcParent[a]);
+            }
+            cpModel.addEquality(parents, isPipe[p]);
+        }
+
+        buildCoverage();
+    }
+
+    /**
+     * A plant is irrigated by any covering sprinkler, connectivity being enforced separately.
+     */
+    private void buildCoverage() {
+        // a sprinkler covers the plant <= plant is not dry
+        for (int k = 0; k < network.plants(); k++) {
+            Literal[] sprinklers = new Literal[network.plantArcOffsets[k + 1] - network.plantArcOffsets[k] + 1];
+            for (int a = network.plantArcOffsets[k]; a < network.plantArcOffsets[k + 1]; a++) {
+                sprinklers[a - network.plantArcOffsets[k]] = isSprinkler[network.plantArcPipes[a]];
+            }
+            sprinklers[sprinklers.length - 1] = isDry[k];
+            cpModel.addBoolOr(sprinklers);
+
+            // a covered plant is not dry
+            if (modelConfig.symmetryBreaking()) {
+                for (int a = network.plantArcOffsets[k]; a < network.plantArcOffsets[k + 1]; a++) {
+                    cpModel.addImplication(isSprinkler[network.plantArcPipes[a]], isDry[k].not());
+                }
+            }
+        }
     }
 
-    private int optimizeCost() {
-        IntVar cost = getIntVar(costVariable());
+    private void buildConnectors(int p) {
+        // number of pipe connectors
+        int i = network.row(network.pipeCells[p]);
+        int j = network.column(network.pipeCells[p]);
+
+        Literal up = isPipeOrSource(i - 1, j);
+        Literal right = isPipeOrSource(i, j + 1);
+        Literal down = isPipeOrSource(i + 1, j);
+        Literal left = isPipeOrSource(i, j - 1);
+
+        cpModel.addBoolAnd(new Literal[] { up, down, left.not(), right.not() })
+                .onlyEnforceIf(isHorizontal[p]);
+        cpModel.addBoolAnd(new Literal[] { left, right, up.not(), down.not() })
+                .onlyEnforceIf(isVertical[p]);
+
+        // horizontal || vertical <= pipeNoConnectorsRequired
+        cpModel.addBoolOr(new Literal[] {
+                isHorizontal[p],
+                isVertical[p]
+        }).onlyEnforceIf(noConnectorsRequired[p]);
+
+        LinearExprBuilder neighborPipes = LinearExpr.newBuilder();
+        for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+            neighborPipes.add(isPipe[network.pipeArcEnds[a]]);
+        }
+        cpModel.addEquality(connectors[p], neighborPipes)
+                .onlyEnforceIf(noConnectorsRequired[p].not());
+        cpModel.addEquality(connectors[p], 0)
+                .onlyEnforceIf(noConnectorsRequired[p]);
+    }
+
+    /**
+     * Whether the plants receive flow from the sprinklers, instead of a set cover of the plants.
+     */
+    private boolean plantFlows() {
+        return modelConfig.connectivity() == Connectivity.FLOW && !modelConfig.setCover();
+    }
+
+    /**
+     * Upper bound of the flow out of the sources: a unit per plant, or per sprinkler candidate with a set cover.
+     */
+    private int flowCapacity() {
+        if (plantFlows()) {
+            return network.plants();
+        }
+        int candidates = 0;
+        for (boolean candidate : network.sprinklerCandidates) {
+            if (candidate) {
+                candidates++;
+            }
+        }
+        return candidates;
+    }
+
+    private void addFlowPositive(LinearArgument[] arcFlow, BoolVar[] isArcFlowPositive) {
+        for (int a = 0; a < arcFlow.length; a++) {
+            cpModel.addGreaterOrEqual(arcFlow[a], 0)
+                    .onlyEnforceIf(isArcFlowPositive[a]);
+        }
+    }
 
+    /**
+     * @param upperBound cost of a known feasible solution
+     */
+    private void buildCost(long upperBound) {
+        LinearExprBuilder costExpression = LinearExpr.newBuilder();
+        for (int p = 0; p < network.pipes(); p++) {
+            costExpression.addTerm(isPipe[p], input.P())
+                    .addTerm(connectors[p], input.C());
+            if (isSprinkler[p] != null) {
+                costExpression.addTerm(isSprinkler[p], input.T());
+            }
+        }
+        for (BoolVar dry : isDry) {
+            costExpression.addTerm(dry, N*N);
+        }
+        costExpression.add(outsideCost());
+
+        // connectors of the empty cells left out by the presolve, each next to at most one pipe
+        for (int cell = 0; cell < N*N; cell++) {
+            if ((region == null || region[cell]) && input.cells()[cell / N][cell % N] == CellType.EMPTY && network.pipeIndex(cell) < 0) {
+                for (int[] n : OFFSETS) {
+                    int i = network.row(cell) + n[0];
+                    int j = network.column(cell) + n[1];
+                    if (validNeighbor(i, j) && network.pipeIndex(network.cell(i, j)) >= 0) {
+                        costExpression.addTerm(isPipe[network.pipeIndex(network.cell(i, j))], input.C());
+                    }
+                }
+            }
+        }
+
+        // cost variable
+        cost = newIntVar(0, Math.min(maxCost(), upperBound), this::costVariable);
+        cpModel.addEquality(cost, costExpression);
         cpModel.minimize(cost);
-        CpSolverStatus status = cpSolver.solve(cpModel);
-        log(String.format("Solution status %s", status));
 
-        if (status != CpSolverStatus.OPTIMAL) {
-            throw new RuntimeException("Can not find optimal solution");
+        int[] pipeIndex = new int[network.pipes()];
+        int[] sprinklerIndex = new int[network.pipes()];
+        for (int p = 0; p < network.pipes(); p++) {
+            pipeIndex[p] = isPipe[p].getIndex();
+            sprinklerIndex[p] = isSprinkler[p] != null ? isSprinkler[p].getIndex() : -1;
         }
+        variableIndex = new VariableIndex(N, network.pipeCells, pipeIndex, sprinklerIndex, cost.getIndex());
+    }
 
-        int optimalCost = (int) cpSolver.value(cost);
-        log(String.format("Cost is %d", optimalCost));
-        return optimalCost;
+    /**
+     * Bound of the LP relaxation, reported with the solutions and stopping the search once the gap is closed.
+     * It is not added to the model, as a lower bound on the cost variable slows down the search.
+     */
+    private void buildRelaxationBound() {
+        LinearRelaxation linearRelaxation = new LinearRelaxation(input, network);
+        relaxationBound = linearRelaxation.bound() + outsideCost();
+        log(String.format("Linear relaxation bound is %d, in %.3fs", relaxationBound, linearRelaxation.wallTime()));
     }
 
-    private BoolVar isPipeOrSource(int i, int j) {
-        if (! validNeighbor(i, j)) {
-            return alwaysFalse;
+    /**
+     * Penalty of the plants outside of the region
+     */
+    private long outsideCost() {
+        return (long) N*N * (plants() - network.plants());
+    }
+
+    /**
+     * Hint the solver with a complete solution, including the matching flows.
+     */
+    private void buildHints(Output output) {
+        boolean[][] p = output.pipes();
+        boolean[][] s = output.sprinklers();
+        CostEvaluator costEvaluator = new CostEvaluator(input);
+        FlowAssignment flowAssignment = new FlowAssignment(network, output, modelConfig.setCover());
+
+        for (int pipe = 0; pipe < network.pipes(); pipe++) {
+            int i = network.row(network.pipeCells[pipe]);
+            int j = network.column(network.pipeCells[pipe]);
+            boolean horizontal = costEvaluator.horizontal(p, i, j);
+            boolean vertical = costEvaluator.vertical(p, i, j);
+            cpModel.addHint(isPipe[pipe], p[i][j] ? 1 : 0);
+            cpModel.addHint(isHorizontal[pipe], horizontal ? 1 : 0);
+            cpModel.addHint(isVertical[pipe], vertical ? 1 : 0);
+            cpModel.addHint(noConnectorsRequired[pipe], horizontal || vertical ? 1 : 0);
+            cpModel.addHint(connectors[pipe], costEvaluator.connectors(p, i, j));
+            if (isSprinkler[pipe] != null) {
+                cpModel.addHint(isSprinkler[pipe], s[i][j] ? 1 : 0);
+            }
+        }
+
+        for (int k = 0; k < network.plants(); k++) {
+            cpModel.addHint(isDry[k], flowAssignment.isDry(k) ? 1 : 0);
+        }
+
+        switch (modelConfig.connectivity()) {
+            case FLOW:
+                buildFlowHints(flowAssignment);
+                break;
+            case ARBORESCENCE:
+                buildArborescenceHints(flowAssignment);
+                break;
+            case LAZY:
+                break;
+        }
+
+        cpModel.addHint(cost, output.cost());
+    }
+
+    private void buildFlowHints(FlowAssignment flowAssignment) {
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            cpModel.addHint(sourceArcFlow[a], flowAssignment.sourceArcFlow[a]);
+            cpModel.addHint(isSourceArcFlowPositive[a], flowAssignment.isSourceArcInFlow[a] ? 0 : 1);
+        }
+        for (int a = 0; a < network.pipeArcs(); a++) {
+            if (pipeArcFlowVariables[a] != null) {
+                cpModel.addHint(pipeArcFlowVariables[a], flowAssignment.pipeArcFlow[a]);
+            }
+            cpModel.addHint(isPipeArcFlowPositive[a], flowAssignment.isPipeArcInFlow[a] ? 0 : 1);
+        }
+        if (!plantFlows()) {
+            return;
+        }
+        for (int a = 0; a < network.plantArcs(); a++) {
+            cpModel.addHint(plantArcFlow[a], flowAssignment.plantArcFlow[a]);
+            cpModel.addHint(isPlantArcFlowPositive[a], flowAssignment.isPlantArcInFlow[a] ? 0 : 1);
+        }
+    }
+
+    /**
+     * The parent of a pipe is the end of the arc bringing water into it.
+     */
+    private void buildArborescenceHints(FlowAssignment flowAssignment) {
+        for (int p = 0; p < network.pipes(); p++) {
+            cpModel.addHint(depth[p], flowAssignment.depth[p]);
+        }
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            cpModel.addHint(isSourceArcParent[a], flowAssignment.isSourceArcInFlow[a] ? 1 : 0);
+        }
+        for (int a = 0; a < network.pipeArcs(); a++) {
+            cpModel.addHint(isPipeArcParent[a], flowAssignment.isPipeArcInFlow[a] ? 1 : 0);
+        }
+    }
+
+    /**
+     * Solve the model without connectivity, then, while the optimal solution has pipes disconnected from the sources,
+     * cut it off and solve again from its hints.
+     * Falls back to the best connected solution found once out of time.
+     */
+    private Output optimizeWithCuts() {
+        long start = System.nanoTime();
+        for (int round = 1; ; round++) {
+            double remaining = solverConfig.timeLimit() - (System.nanoTime() - start) / 1e9;
+            if (solverConfig.timeLimit() > 0 && remaining <= 0) {
+                return fallback();
+            }
+
+            CpSolverStatus status = optimizeCost(solverConfig.timeLimit() > 0 ? solverConfig.withTimeLimit(remaining) : solverConfig);
+            if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE) {
+                return fallback();
+            }
+
+            Output output = solverOutput(solutionStatus(status));
+            List<int[]> components = disconnectedComponents(output.pipes());
+            log(String.format("Round %d: %d components disconnected from the sources", round, components.size()));
+            if (components.isEmpty()) {
+                return output;
+            }
+            if (status != CpSolverStatus.OPTIMAL) {
+                return fallback();
+            }
+
+            components.forEach(this::addConnectivityCut);
+            cpModel.clearHints();
+            for (int p = 0; p < network.pipes(); p++) {
+                cpModel.addHint(isPipe[p], cpSolver.value(isPipe[p]));
+                if (isSprinkler[p] != null) {
+                    cpModel.addHint(isSprinkler[p], cpSolver.value(isSprinkler[p]));
+                }
+            }
         }
+    }
 
-        return isPipeOrSource[i][j];
+    /**
+     * Best connected solution, with the bound of the last relaxation.
+     */
+    /**
+     * Solution of the search, or the best published solution, at least the warm start,
+     * when the time runs out before the search finds one.
+     */
+    private Output searchOutput(CpSolverStatus status) {
+        if (status == CpSolverStatus.UNKNOWN && published != null) {
+            log("No solution found in time, returning the warm start");
+            return fallback();
+        }
+        return solverOutput(solutionStatus(status));
     }
 
-    private BoolVar newBoolVar(String name) {
-        BoolVar boolVar = cpModel.newBoolVar(name);
-        booleanVars.put(name, boolVar);
-        return boolVar;
+    private Output fallback() {
+        long bound = Math.min(bound(), published.cost());
+        return new Output(published.pipes(), published.sprinklers(), SolutionStatus.FEASIBLE, published.cost(), bound);
     }
 
-    private IntVar newIntVar(long l, long u, String name) {
-        IntVar intVar = cpModel.newIntVar(l, u, name);
-        intVars.put(name, intVar);
-        return intVar;
+    /**
+     * Components of the present pipes not connected to a source.
+     */
+    private List<int[]> disconnectedComponents(boolean[][] pipes) {
+        // the last element stands for all the sources
+        UnionFind unionFind = new UnionFind(network.pipes() + 1);
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            int pipe = network.sourceArcPipes[a];
+            if (isPresent(pipes, pipe)) {
+                unionFind.union(pipe, network.pipes());
+            }
+        }
+        for (int a = 0; a < network.pipeArcs(); a++) {
+            int start = network.pipeArcStarts[a];
+            int end = network.pipeArcEnds[a];
+            if (start < end && isPresent(pipes, start) && isPresent(pipes, end)) {
+                unionFind.union(start, end);
+            }
+        }
+
+        int sourceRoot = unionFind.find(network.pipes());
+        int[] componentSizes = new int[network.pipes() + 1];
+        for (int p = 0; p < network.pipes(); p++) {
+            if (isPresent(pipes, p) && unionFind.find(p) != sourceRoot) {
+                componentSizes[unionFind.find(p)]++;
+            }
+        }
+
+        int[][] componentPipes = new int[network.pipes() + 1][];
+        List<int[]> components = new ArrayList<>();
+        for (int p = 0; p < network.pipes(); p++) {
+            if (isPresent(pipes, p) && unionFind.find(p) != sourceRoot) {
+                int root = unionFind.find(p);
+                if (componentPipes[root] == null) {
+                    componentPipes[root] = new int[componentSizes[root]];
+                    components.add(componentPipes[root]);
+                    componentSizes[root] = 0;
+                }
+                componentPipes[root][componentSizes[root]++] = p;
+            }
+        }
+        return components;
     }
 
-    private BoolVar getBoolVar(String name) {
-        return booleanVars.get(name);
+    /**
+     * A pipe of the component is only connected to a source through a pipe on the boundary of the component.
+     * The component is not adjacent to any source.
+     */
+    private void addConnectivityCut(int[] component) {
+        boolean[] inComponent = new boolean[network.pipes()];
+        for (int p : component) {
+            inComponent[p] = true;
+        }
+
+        boolean[] onBoundary = new boolean[network.pipes()];
+        List<Literal> boundary = new ArrayList<>();
+        for (int p : component) {
+            for (int a = network.pipeArcOffsets[p]; a < network.pipeArcOffsets[p + 1]; a++) {
+                int end = network.pipeArcEnds[a];
+                if (!inComponent[end] && !onBoundary[end]) {
+                    onBoundary[end] = true;
+                    boundary.add(isPipe[end]);
+                }
+            }
+        }
+
+        for (int p : component) {
+            Literal[] cut = boundary.toArray(new Literal[boundary.size() + 1]);
+            cut[boundary.size()] = isPipe[p].not();
+            cpModel.addBoolOr(cut);
+        }
     }
 
-    private IntVar getIntVar(String name) {
-        return intVars.get(name);
+    private boolean isPresent(boolean[][] pipes, int pipe) {
+        int cell = network.pipeCells[pipe];
+        return pipes[network.row(cell)][network.column(cell)];
     }
 
-    private void loadPipeBoolean(boolean[][] b, Map<Pipe, BoolVar> pipeVars) {
-        pipeVars.forEach((pipe, enabled) ->
-                b[pipe.i()][pipe.j()] = cpSolver.booleanValue(enabled));
+    private Output solverOutput(SolutionStatus status) {
+        boolean[][] p = new boolean[N][N];
+        boolean[][] s = new boolean[N][N];
+
+        CpSolverResponse response = cpSolver.response();
+        loadPipeBoolean(p, variableIndex.isPipe, index -> response.getSolution(index) != 0);
+        loadPipeBoolean(s, variableIndex.isSprinkler, index -> response.getSolution(index) != 0);
+
+        long objective = (long) cpSolver.objectiveValue();
+        // a solution reaching the relaxation bound is optimal, the search being stopped before proving it
+        return new Output(p, s, objective <= relaxationBound ? SolutionStatus.OPTIMAL : status, objective, bound());
     }
 
-    private int maxCost() {
-        return N*N * (input.P() + input.T() + OFFSETS.length * input.C() + isDry.size());
+    private CpSolverStatus optimizeCost(SolverConfig solverConfig) {
+        solverConfig.apply(cpSolver.getParameters());
+        if (reportImprovements) {
+            // capture the search log to attribute improvements to portfolio workers
+            cpSolver.getParameters()
+                    .setLogSearchProgress(true)
+                    .setLogToStdout(false);
+            cpSolver.setLogCallback(report);
+        }
+
+        // stop once the relative gap to the relaxation bound is below the limit,
+        // unless solving without connectivity, the relaxation bound only holding for connected solutions
+        long stopCost = modelConfig.connectivity() == Connectivity.LAZY
+                ? -1
+                : (long) Math.floor(relaxationBound / (1 - solverConfig.relativeGapLimit()));
+        CpSolverStatus status = cpSolver.solve(cpModel, new IncumbentCallback(variableIndex, stopCost, this::publish));
+        report.complete(cpSolver.numConflicts(), cpSolver.numBranches(),
+                cpSolver.response().getNumBinaryPropagations() + cpSolver.response().getNumIntegerPropagations(),
+                cpSolver.wallTime(), cpSolver.userTime());
+        log(String.format("Solution status %s", status));
+        log(report.toString());
+
+        if (status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.FEASIBLE) {
+            long bestCost = (long) cpSolver.objectiveValue();
+            long bound = bound();
+            log(String.format("Cost is %d, bound is %d, gap is %.2f%%", bestCost, bound, 100.0 * (bestCost - bound) / Math.max(bestCost, 1)));
+        }
+        return status;
     }
 
-    private void log(String message) {
-        System.err.println(message);
+    /**
+     * Best bound of the search or of the LP relaxation.
+     */
+    private long bound() {
+        return Math.max((long) cpSolver.bestObjectiveBound(), relaxationBound);
     }
 
-    private String alwaysFalseVariable() {
-        return "alwaysFalse";
+    private SolutionStatus solutionStatus(CpSolverStatus status) {
+        switch (status) {
+            case OPTIMAL:
+                return SolutionStatus.OPTIMAL;
+            case FEASIBLE:
+                return SolutionStatus.FEASIBLE;
+            default:
+                throw new RuntimeException(String.format("Can not find feasible solution within %.1f seconds", solverConfig.timeLimit()));
+        }
     }
 
-    private String costVariable() {
-        return "cost";
+    /**
+     * Notify the listeners of a solution, unless it does not improve on the previous one.
+     */
+    private synchronized void publish(Output output, double wallTime) {
+        if (published != null && output.cost() >= published.cost()) {
+            return;
+        }
+        // solutions of the relaxed model are only valid once connected
+        if (modelConfig.connectivity() == Connectivity.LAZY && !disconnectedComponents(output.pipes()).isEmpty()) {
+            return;
+        }
+        published = output;
+        listeners.forEach(listener -> listener.onSolution(output, wallTime));
+    }
+
+    /**
+     * Literal of the pipe on the cell, constant on the other cells
+     */
+    private Literal isPipeOrSource(int i, int j) {
+        if (! validNeighbor(i, j)) {
+            return alwaysFalse;
+        }
+
+        int cell = network.cell(i, j);
+        if (network.pipeIndex(cell) >= 0) {
+            return isPipe[network.pipeIndex(cell)];
+        }
+        return network.sourceIndex(cell) >= 0 ? alwaysFalse.not() : alwaysFalse;
     }
 
-    private String isPipeVariable(Pipe pipe) {
-        return String.format("isPipe_%d_%d", pipe.i(), pipe.j());
+    /**
+     * The name is only formatted in debug mode.
+     */
+    private BoolVar newBoolVar(Supplier<String> name) {
+        return cpModel.newBoolVar(variableName(name));
     }
 
-    private String isSprinklerVariable(Pipe pipe) {
-        return String.format("isSprinkler_%d_%d", pipe.i(), pipe.j());
+    private IntVar newIntVar(long l, long u, Supplier<String> name) {
+        return cpModel.newIntVar(l, u, variableName(name));
     }
 
-    private String noConnectorsRequiredVariable(Pipe pipe) {
-        return String.format("noConnectorsRequired_%d_%d", pipe.i(), pipe.j());
+    private String variableName(Supplier<String> name) {
+        return modelConfig.namedVariables() ? name.get() : "";
+    }
+
+    /**
+     * @param variables proto index of the variable of each pipe, -1 when it does not exist
+     */
+    private void loadPipeBoolean(boolean[][] b, int[] variables, IntPredicate value) {
+        for (int p = 0; p < variableIndex.pipes(); p++) {
+            if (variables[p] >= 0) {
+                b[variableIndex.pipeCells[p] / N][variableIndex.pipeCells[p] % N] = value.test(variables[p]);
+            }
+        }
     }
 
-    private String isVerticalVariable(Pipe pipe) {
-        return String.format("isVertical_%d_%d", pipe.i(), pipe.j());
+    private long maxCost() {
+        return (long) N*N * (input.P() + input.T() + OFFSETS.length * input.C() + plants());
     }
 
-    private String isHorizontalVariable(Pipe pipe) {
-        return String.format("isHorizontal_%d_%d", pipe.i(), pipe.j());
+    private int plants() {
+        int plants = 0;
+        for (CellType[] row : input.cells()) {
+            for (CellType cellType : row) {
+                if (cellType == CellType.PLANT) {
+                    plants++;
+                }
+            }
+        }
+        return plants;
+    }
+
+    private void log(String message) {
+        System.err.println(message);
+    }
+
+    private String alwaysFalseVariable() {
+        return "alwaysFalse";
+    }
+
+    private String costVariable() {
+        return "cost";
     }
 
-    private String connectorVariable(Pipe pipe) {
-        return String.format("connector_%d_%d", pipe.i(), pipe.j());
+    private String isPipeVariable(int cell) {
+        return String.format("isPipe_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String isPipeOrSourceVariable(int i, int j) {
-        return String.format("isPipeOrSource_%d_%d", i, j);
+    private String isSprinklerVariable(int cell) {
+        return String.format("isSprinkler_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String isDryVariable(Plant plant) {
-        return String.format("isDry_%d_%d", plant.i(), plant.j());
+    private String noConnectorsRequiredVariable(int cell) {
+        return String.format("noConnectorsRequired_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String flowVariable(SourceArc sourceArc) {
-        return flowVariable(sourceArc.start.i(), sourceArc.start.j(), sourceArc.end.i(), sourceArc.end.j());
+    private String isVerticalVariable(int cell) {
+        return String.format("isVertical_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String flowVariable(PipeArc pipeArc) {
-        return flowVariable(pipeArc.start.i(), pipeArc.start.j(), pipeArc.end.i(), pipeArc.end.j());
+    private String isHorizontalVariable(int cell) {
+        return String.format("isHorizontal_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String isFlowPositiveVariable(SourceArc sourceArc) {
-        return isFlowPositiveVariable(sourceArc.start.i(), sourceArc.start.j(), sourceArc.end.i(), sourceArc.end.j());
+    private String connectorVariable(int cell) {
+        return String.format("connector_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String isFlowPositiveVariable(PipeArc pipeArc) {
-        return isFlowPositiveVariable(pipeArc.start.i(), pipeArc.start.j(), pipeArc.end.i(), pipeArc.end.j());
+    private String isDryVariable(int cell) {
+        return String.format("isDry_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String isFlowPositiveVariable(PlantArc plantArc) {
-        return isFlowPositiveVariable(plantArc.start.i(), plantArc.start.j(), plantArc.end.i(), plantArc.end.j());
+    private String isCoveredVariable(int cell, int sprinklers) {
+        return String.format("isCovered_%d_%d_%d", network.row(cell), network.column(cell), sprinklers);
     }
 
-    private String flowVariable(PlantArc plantArc) {
-        return flowVariable(plantArc.start.i(), plantArc.start.j(), plantArc.end.i(), plantArc.end.j());
+    private String flowVariable(int start, int end) {
+        return String.format("flow_%d_%d_%d_%d", network.row(start), network.column(start), network.row(end), network.column(end));
     }
 
-    private String flowVariable(int i1, int j1, int i2, int j2) {
-        return String.format("flow_%d_%d_%d_%d", i1, j1, i2, j2);
+    private String depthVariable(int cell) {
+        return String.format("depth_%d_%d", network.row(cell), network.column(cell));
     }
 
-    private String isFlowPositiveVariable(int i1, int j1, int i2, int j2) {
-        return String.format("isFlowPositive_%d_%d_%d_%d", i1, j1, i2, j2);
+    private String isParentVariable(int parent, int child) {
+        return String.format("isParent_%d_%d_%d_%d", network.row(parent), network.column(parent), network.row(child), network.column(child));
     }
 
-    private boolean cover(int i, int j, int i2, int j2) {
-        int dx = i - i2;
-        int dy = j - j2;
-        int Z = input.Z();
-        return dx*dx + dy*dy <= Z*Z;
+    private String isFlowPositiveVariable(int start, int end) {
+        return String.format("isFlowPositive_%d_%d_%d_%d", network.row(start), network.column(start), network.row(end), network.column(end));
     }
 
     private boolean validNeighbor(int i, int j) {
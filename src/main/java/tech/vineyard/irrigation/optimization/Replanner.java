@@ -0,0 +1,147 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+
+import java.io.IOException;
+
+/**
+ * Planning session following the edits of a farm.
+ * <p>
+ * After a cold solve, each edited input is re-planned from the previous solution: the pipes and sprinklers
+ * invalidated by the edit are removed, and only a window around the edited cells, the removed pipes and the plants
+ * they leave dry is solved again, the other cells keeping the previous solution. When the costs or the radius change, the whole grid is solved
+ * again, hinted with the previous solution.
+ */
+public class Replanner implements Solver {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final SolverConfig solverConfig;
+    private final ModelConfig modelConfig;
+
+    private Input input;
+    private Output output;
+
+    public Replanner(Input input, SolverConfig solverConfig, ModelConfig modelConfig) {
+        this.input = input;
+        this.solverConfig = solverConfig;
+        this.modelConfig = modelConfig;
+    }
+
+    /**
+     * Resume the session from a solution of the input found by another solver.
+     */
+    public Replanner(Input input, Output output, SolverConfig solverConfig, ModelConfig modelConfig) {
+        this(input, solverConfig, modelConfig);
+        this.output = output;
+    }
+
+    @Override
+    public Output solution() throws IOException {
+        output = new Optimizer(input, solverConfig, modelConfig).solution();
+        return output;
+    }
+
+    /**
+     * Re-plan an edit of the input of the previous solution.
+     */
+    public Output replan(Input edited) {
+        if (output == null) {
+            throw new IllegalStateException("Can not re-plan before the first solution");
+        }
+        if (edited.N() != input.N()) {
+            throw new IllegalArgumentException("Can not re-plan a grid of another size");
+        }
+
+        Output repaired = repair(edited);
+        boolean[][] window = window(edited, repaired);
+        output = new Optimizer(edited, solverConfig, modelConfig)
+                .neighbourhoodSolution(repaired, window, solverConfig.timeLimit());
+        input = edited;
+        return output;
+    }
+
+    /**
+     * Cells within the reach of a sprinkler from an edited cell or from a plant the repair left dry,
+     * with a margin for its connection, and the pipes removed by the repair. The whole grid when the costs change.
+     */
+    private boolean[][] window(Input edited, Output repaired) {
+        int N = edited.N();
+        boolean costsChanged = edited.C() != input.C() || edited.P() != input.P() || edited.T() != input.T()
+                || edited.Z() != input.Z();
+        int radius = edited.Z() + 2;
+        boolean[][] wet = new CostEvaluator(edited).wet(repaired.pipes(), repaired.sprinklers());
+
+        boolean[][] window = new boolean[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (output.pipes()[i][j] && !repaired.pipes()[i][j]) {
+                    window[i][j] = true;
+                }
+                if (!costsChanged && edited.cells()[i][j] == input.cells()[i][j]
+                        && (edited.cells()[i][j] != CellType.PLANT || wet[i][j])) {
+                    continue;
+                }
+                for (int i2 = Math.max(0, i - radius); i2 <= Math.min(N - 1, i + radius); i2++) {
+                    for (int j2 = Math.max(0, j - radius); j2 <= Math.min(N - 1, j + radius); j2++) {
+                        window[i2][j2] = true;
+                    }
+                }
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Previous solution without the pipes on the cells no longer empty, the pipes they disconnect from the sources,
+     * and the sprinklers covering no plant.
+     */
+    private Output repair(Input edited) {
+        int N = edited.N();
+        CellType[][] cells = edited.cells();
+        boolean[] sprinklerCandidates = new SprinklerPresolve(edited, modelConfig.pruneDominatedSprinklers()).candidates();
+
+        // breadth first search from the sources along the remaining pipes
+        boolean[][] pipes = new boolean[N][N];
+        int[] queue = new int[N*N];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cells[i][j] == CellType.SOURCE) {
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int[] offset : OFFSETS) {
+                int i = cell / N + offset[0];
+                int j = cell % N + offset[1];
+                if (0 <= i && i < N && 0 <= j && j < N && cells[i][j] == CellType.EMPTY
+                        && output.pipes()[i][j] && !pipes[i][j]) {
+                    pipes[i][j] = true;
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+
+        boolean[][] sprinklers = new boolean[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                sprinklers[i][j] = pipes[i][j] && output.sprinklers()[i][j] && sprinklerCandidates[i*N + j];
+            }
+        }
+
+        long cost = new CostEvaluator(edited).cost(pipes, sprinklers);
+        return new Output(pipes, sprinklers, SolutionStatus.FEASIBLE, cost, 0);
+    }
+}
@@ -0,0 +1,14 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.Output;
+
+/**
+ * Receives every improving solution while the solver searches.
+ */
+public interface SolutionListener {
+    /**
+     * @param output improving solution, with its cost and the current bound
+     * @param wallTime seconds elapsed since the search started
+     */
+    void onSolution(Output output, double wallTime);
+}
@@ -0,0 +1,117 @@
+package tech.vineyard.irrigation.optimization;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Statistics of a CP-SAT solve, including the portfolio worker behind each improvement.
+ * <p>
+ * Improvements are parsed from the search progress log, enabled by {@link Optimizer#setReportImprovements}, with lines like
+ * <pre>#3       0.12s best:8     next:[0,7]      default_lp fixed_bools:0/48</pre>
+ */
+public class SolveReport implements Consumer<String> {
+
+    private static final Pattern IMPROVEMENT = Pattern.compile("^#(\\d+)\\s+([\\d.]+)s\\s+best:(\\S+)\\s+next:\\S+\\s+(?:([^\\s:]+)(?:\\s|$))?");
+
+    /**
+     * Worker name when the search runs a single worker, which is not printed in the log
+     */
+    private static final String SINGLE_WORKER = "single_worker";
+
+    public static class Improvement {
+        public final double wallTime;
+        public final double cost;
+        public final String worker;
+
+        public Improvement(double wallTime, double cost, String worker) {
+            this.wallTime = wallTime;
+            this.cost = cost;
+            this.worker = worker;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3fs cost=%.0f by %s", wallTime, cost, worker);
+        }
+    }
+
+    private final List<Improvement> improvements = new ArrayList<>();
+
+    private long conflicts;
+    private long branches;
+    private long propagations;
+    private double wallTime;
+    private double userTime;
+
+    @Override
+    public synchronized void accept(String log) {
+        log.lines()
+                .map(IMPROVEMENT::matcher)
+                .filter(Matcher::find)
+                .forEach(m -> improvements.add(new Improvement(Double.parseDouble(m.group(2)), Double.parseDouble(m.group(3)),
+                        m.group(4) == null ? SINGLE_WORKER : m.group(4))));
+    }
+
+    /**
+     * Add the statistics of a solve, the model being solved several times with lazy connectivity.
+     */
+    void complete(long conflicts, long branches, long propagations, double wallTime, double userTime) {
+        this.conflicts += conflicts;
+        this.branches += branches;
+        this.propagations += propagations;
+        this.wallTime += wallTime;
+        this.userTime += userTime;
+    }
+
+    public List<Improvement> improvements() {
+        return Collections.unmodifiableList(improvements);
+    }
+
+    /**
+     * Number of improvements found by each worker.
+     */
+    public Map<String, Integer> improvementsPerWorker() {
+        Map<String, Integer> counts = new TreeMap<>();
+        improvements.forEach(improvement -> counts.merge(improvement.worker, 1, Integer::sum));
+        return counts;
+    }
+
+    public long conflicts() {
+        return conflicts;
+    }
+
+    public long branches() {
+        return branches;
+    }
+
+    /**
+     * Boolean and integer propagations of the search.
+     */
+    public long propagations() {
+        return propagations;
+    }
+
+    public double wallTime() {
+        return wallTime;
+    }
+
+    public double userTime() {
+        return userTime;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("conflicts=%d branches=%d propagations=%d wallTime=%.3fs userTime=%.3fs%n",
+                conflicts, branches, propagations, wallTime, userTime));
+        improvements.forEach(improvement -> sb.append(String.format("  %s%n", improvement)));
+        improvementsPerWorker().forEach((worker, count) -> sb.append(String.format("  %s: %d%n", worker, count)));
+        return sb.toString();
+    }
+}
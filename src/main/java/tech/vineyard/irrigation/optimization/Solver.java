@@ -0,0 +1,13 @@
+package tech.vineyard.irrigation.optimization;
+
+import tech.vineyard.irrigation.Output;
+
+import java.io.IOException;
+
+/**
+ * Compute a solution of an instance.
+ */
+public interface Solver {
+
+    Output solution() throws IOException;
+}
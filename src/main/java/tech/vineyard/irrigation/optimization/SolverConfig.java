@@ -0,0 +1,125 @@
+package tech.vineyard.irrigation.optimization;
+
+import com.google.ortools.sat.SatParameters;
+import com.google.ortools.sat.SatParameters.SearchBranching;
+
+/**
+ * CP-SAT parameters of a solve.
+ */
+public class SolverConfig {
+
+    public static final SolverConfig DEFAULT = new SolverConfig(0, 1, SearchBranching.AUTOMATIC_SEARCH, 1, 0, 0, 0);
+
+    /**
+     * number of parallel portfolio workers, all cores when 0
+     */
+    private final int workers;
+
+    /**
+     * random seed of the search
+     */
+    private final int randomSeed;
+
+    /**
+     * search strategy
+     */
+    private final SearchBranching searchBranching;
+
+    /**
+     * linearization level of the constraints in the LP relaxation, 0 to 2
+     */
+    private final int linearizationLevel;
+
+    /**
+     * wall clock budget in seconds, unbounded when not positive
+     */
+    private final double timeLimit;
+
+    /**
+     * budget in deterministic time units of CP-SAT, unbounded when not positive.
+     * With a single worker, the search then ends at the same point on every machine.
+     */
+    private final double deterministicTimeLimit;
+
+    /**
+     * stop when the relative gap between the cost and the bound is below the limit, only at optimality when 0
+     */
+    private final double relativeGapLimit;
+
+    public SolverConfig(int workers, int randomSeed, SearchBranching searchBranching, int linearizationLevel, double timeLimit,
+                        double deterministicTimeLimit, double relativeGapLimit) {
+        this.workers = workers;
+        this.randomSeed = randomSeed;
+        this.searchBranching = searchBranching;
+        this.linearizationLevel = linearizationLevel;
+        this.timeLimit = timeLimit;
+        this.deterministicTimeLimit = deterministicTimeLimit;
+        this.relativeGapLimit = relativeGapLimit;
+    }
+
+    public SolverConfig withTimeLimit(double timeLimit) {
+        return new SolverConfig(workers, randomSeed, searchBranching, linearizationLevel, timeLimit, deterministicTimeLimit, relativeGapLimit);
+    }
+
+    public SolverConfig withWorkers(int workers) {
+        return new SolverConfig(workers, randomSeed, searchBranching, linearizationLevel, timeLimit, deterministicTimeLimit, relativeGapLimit);
+    }
+
+    public SolverConfig withDeterministicTimeLimit(double deterministicTimeLimit) {
+        return new SolverConfig(workers, randomSeed, searchBranching, linearizationLevel, timeLimit, deterministicTimeLimit, relativeGapLimit);
+    }
+
+    public SolverConfig withRelativeGapLimit(double relativeGapLimit) {
+        return new SolverConfig(workers, randomSeed, searchBranching, linearizationLevel, timeLimit, deterministicTimeLimit, relativeGapLimit);
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public int randomSeed() {
+        return randomSeed;
+    }
+
+    public SearchBranching searchBranching() {
+        return searchBranching;
+    }
+
+    public int linearizationLevel() {
+        return linearizationLevel;
+    }
+
+    public double timeLimit() {
+        return timeLimit;
+    }
+
+    public double deterministicTimeLimit() {
+        return deterministicTimeLimit;
+    }
+
+    public double relativeGapLimit() {
+        return relativeGapLimit;
+    }
+
+    public void apply(SatParameters.Builder parameters) {
+        parameters.setNumWorkers(workers)
+                .setRandomSeed(randomSeed)
+                .setSearchBranching(searchBranching)
+                .setLinearizationLevel(linearizationLevel);
+        if (timeLimit > 0) {
+            parameters.setMaxTimeInSeconds(timeLimit);
+        }
+        if (deterministicTimeLimit > 0) {
+            parameters.setMaxDeterministicTime(deterministicTimeLimit);
+        }
+        if (relativeGapLimit > 0) {
+            parameters.setRelativeGapLimit(relativeGapLimit);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("workers=%d seed=%d search=%s linearization=%d timeLimit=%.1f deterministicTimeLimit=%.1f relativeGapLimit=%.3f",
+                workers, randomSeed, searchBranching, linearizationLevel, timeLimit, deterministicTimeLimit, relativeGapLimit);
+    }
+}
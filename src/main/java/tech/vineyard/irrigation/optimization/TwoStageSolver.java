@@ -0,0 +1,430 @@
+package tech.vineyard.irrigation.optimization;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.BoolVar;
+import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverStatus;
+import com.google.ortools.sat.LinearExpr;
+import com.google.ortools.sat.LinearExprBuilder;
+import com.google.ortools.sat.Literal;
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.model.DiskStencil;
+import tech.vineyard.irrigation.optimization.model.DistanceField;
+import tech.vineyard.irrigation.optimization.model.Network;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
+import tech.vineyard.irrigation.optimization.model.ReachabilityPresolve;
+import tech.vineyard.irrigation.optimization.model.Router;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Solve the coverage and the routing one after the other, for grids too large for the joint model.
+ * <p>
+ * Stage one chooses the sprinklers by a weighted set cover of the plants, a dry plant costing N*N, solved by CP-SAT from a greedy cover.
+ * Stage two connects the chosen sprinklers to the sources by a Steiner tree,
+ * repeatedly adding the cheapest path from the tree to the closest unconnected sprinkler, counting pipes, turns and connectors.
+ * The sprinklers whose plants are all irrigated by other sprinklers are then removed, with the pipes left dangling.
+ * <p>
+ * The first cover prices a sprinkler at T plus the pipe under it. The following rounds price it at T plus the cheapest path
+ * joining it to the trunk of the previous tree, so that the cover follows the routing. The cheapest tree is returned.
+ * It is not optimal; it can be returned directly or seed the exact model with {@link Optimizer#setWarmStart(Output)}.
+ */
+public class TwoStageSolver implements Solver {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    /**
+     * cover and routing rounds, sharing the time limit of the set cover
+     */
+    private static final int ROUNDS = 6;
+
+    private final Input input;
+    private final SolverConfig solverConfig;
+    private final ModelConfig modelConfig;
+    private final int N;
+    private final CellType[][] cells;
+    private final DiskStencil stencil;
+
+    /**
+     * @param solverConfig configuration of the set cover solve
+     */
+    public TwoStageSolver(Input input, SolverConfig solverConfig, ModelConfig modelConfig) {
+        this.input = input;
+        this.solverConfig = solverConfig;
+        this.modelConfig = modelConfig;
+        N = input.N();
+        cells = input.cells();
+        stencil = DiskStencil.of(input.Z());
+    }
+
+    @Override
+    public Output solution() {
+        boolean[] candidates = new SprinklerPresolve(input, modelConfig.pruneDominatedSprinklers()).candidates();
+        boolean[] reachable = new ReachabilityPresolve(input, candidates, null).cells();
+        for (int cell = 0; cell < N*N; cell++) {
+            candidates[cell] &= reachable[cell];
+        }
+
+        Network network = new NetworkBuilder(input).build();
+        Router router = new Router(input, network);
+        long[] sprinklerCosts = new long[N*N];
+        Arrays.fill(sprinklerCosts, input.T() + input.P());
+        SolverConfig roundConfig = solverConfig.timeLimit() > 0 ? solverConfig.withTimeLimit(solverConfig.timeLimit() / ROUNDS) : solverConfig;
+
+        Output best = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean[] sprinklers = cover(candidates, sprinklerCosts, roundConfig);
+
+            boolean[][] pipes = new boolean[N][N];
+            boolean[][] connected = new boolean[N][N];
+            route(network, router, sprinklers, pipes, connected);
+            prune(pipes, connected);
+
+            long cost = new CostEvaluator(input).cost(pipes, connected);
+            if (best == null || cost < best.cost()) {
+                best = new Output(pipes, connected, SolutionStatus.FEASIBLE, cost, 0);
+            }
+            price(network, router, trunk(pipes, connected), sprinklerCosts);
+        }
+        return best;
+    }
+
+    /**
+     * Pipes of the tree without the branches leading to a single sprinkler.
+     */
+    private boolean[][] trunk(boolean[][] pipes, boolean[][] sprinklers) {
+        boolean[][] trunk = new boolean[N][];
+        for (int i = 0; i < N; i++) {
+            trunk[i] = pipes[i].clone();
+        }
+        for (int cell = 0; cell < N*N; cell++) {
+            if (!sprinklers[cell / N][cell % N] || degree(pipes, cell / N, cell % N) > 1) {
+                continue;
+            }
+            int previous = -1;
+            int current = cell;
+            while (true) {
+                trunk[current / N][current % N] = false;
+                int next = -1;
+                for (int[] offset : OFFSETS) {
+                    int i = current / N + offset[0];
+                    int j = current % N + offset[1];
+                    if (valid(i, j) && pipes[i][j] && i*N + j != previous) {
+                        next = i*N + j;
+                    }
+                }
+                if (next < 0 || sprinklers[next / N][next % N] || degree(pipes, next / N, next % N) > 2) {
+                    break;
+                }
+                previous = current;
+                current = next;
+            }
+        }
+        return trunk;
+    }
+
+    /**
+     * Price each sprinkler at T plus the cheapest path joining it to the pipes, for the next cover.
+     */
+    private void price(Network network, Router router, boolean[][] pipes, long[] sprinklerCosts) {
+        DistanceField field = router.field();
+        int[] sources = new int[network.sources()];
+        for (int s = 0; s < sources.length; s++) {
+            sources[s] = s;
+        }
+        field.addSources(sources);
+        int[] laid = new int[network.pipes()];
+        int count = 0;
+        for (int p = 0; p < network.pipes(); p++) {
+            int cell = network.pipeCells[p];
+            if (pipes[network.row(cell)][network.column(cell)]) {
+                laid[count++] = p;
+            }
+        }
+        field.addPipes(Arrays.copyOf(laid, count));
+
+        for (int p = 0; p < network.pipes(); p++) {
+            long distance = field.distance(p);
+            sprinklerCosts[network.pipeCells[p]] = input.T() + (distance < Long.MAX_VALUE ? distance : (long) N*N);
+        }
+    }
+
+    /**
+     * Stage one: weighted set cover of the plants by the sprinkler candidates.
+     *
+     * @return whether each cell holds a sprinkler
+     */
+    boolean[] cover(boolean[] candidates, long[] sprinklerCosts, SolverConfig solverConfig) {
+        int[][] coverage = coverage(candidates);
+        boolean[] greedy = greedyCover(candidates, coverage, sprinklerCosts);
+
+        Loader.loadNativeLibraries();
+        CpModel cpModel = new CpModel();
+        BoolVar[] isSprinkler = new BoolVar[N*N];
+        LinearExprBuilder cost = LinearExpr.newBuilder();
+        for (int cell = 0; cell < N*N; cell++) {
+            if (candidates[cell]) {
+                isSprinkler[cell] = cpModel.newBoolVar("");
+                cpModel.addHint(isSprinkler[cell], greedy[cell] ? 1 : 0);
+                cost.addTerm(isSprinkler[cell], sprinklerCosts[cell]);
+            }
+        }
+
+        // a sprinkler covers the plant <= plant is not dry
+        boolean[] wet = spray(greedy);
+        long greedyCost = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (greedy[cell]) {
+                greedyCost += sprinklerCosts[cell];
+            }
+        }
+        for (int plant = 0; plant < N*N; plant++) {
+            if (cells[plant / N][plant % N] != CellType.PLANT || coverage[plant].length == 0) {
+                continue;
+            }
+            BoolVar isDry = cpModel.newBoolVar("");
+            cpModel.addHint(isDry, wet[plant] ? 0 : 1);
+            if (!wet[plant]) {
+                greedyCost += (long) N*N;
+            }
+            cost.addTerm(isDry, (long) N*N);
+
+            Literal[] sprinklers = new Literal[coverage[plant].length + 1];
+            for (int k = 0; k < coverage[plant].length; k++) {
+                sprinklers[k] = isSprinkler[coverage[plant][k]];
+            }
+            sprinklers[sprinklers.length - 1] = isDry;
+            cpModel.addBoolOr(sprinklers);
+        }
+        cpModel.minimize(cost);
+
+        CpSolver cpSolver = new CpSolver();
+        solverConfig.apply(cpSolver.getParameters());
+        CpSolverStatus status = cpSolver.solve(cpModel);
+        // the search may end on a worse cover than its hint
+        if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE || cpSolver.objectiveValue() >= greedyCost) {
+            return greedy;
+        }
+
+        boolean[] sprinklers = new boolean[N*N];
+        for (int cell = 0; cell < N*N; cell++) {
+            sprinklers[cell] = isSprinkler[cell] != null && cpSolver.booleanValue(isSprinkler[cell]);
+        }
+        return sprinklers;
+    }
+
+    /**
+     * Greedy cover, taking the sprinkler with the lowest cost per dry plant while the plants pay for it.
+     * The costs per plant only increase, so a cost popped from the queue is recomputed and taken when it is still the best.
+     */
+    private boolean[] greedyCover(boolean[] candidates, int[][] coverage, long[] sprinklerCosts) {
+        boolean[] sprinklers = new boolean[N*N];
+        boolean[] wet = new boolean[N*N];
+
+        // candidates by increasing cost per dry plant, as { cost per plant, cell }
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        for (int cell = 0; cell < N*N; cell++) {
+            if (candidates[cell]) {
+                queue.add(new double[] { costPerPlant(cell, wet, sprinklerCosts), cell });
+            }
+        }
+        while (!queue.isEmpty() && queue.peek()[0] < (double) N*N) {
+            int cell = (int) queue.poll()[1];
+            double costPerPlant = costPerPlant(cell, wet, sprinklerCosts);
+            if (!queue.isEmpty() && costPerPlant > queue.peek()[0]) {
+                queue.add(new double[] { costPerPlant, cell });
+                continue;
+            }
+            if (costPerPlant >= (double) N*N) {
+                break;
+            }
+
+            sprinklers[cell] = true;
+            for (int d = 0; d < stencil.size(); d++) {
+                int i = cell / N + stencil.di[d];
+                int j = cell % N + stencil.dj[d];
+                if (valid(i, j)) {
+                    wet[i*N + j] = true;
+                }
+            }
+        }
+        return sprinklers;
+    }
+
+    /**
+     * @return cost of the sprinkler per dry plant it irrigates, infinite when it irrigates none
+     */
+    private double costPerPlant(int cell, boolean[] wet, long[] sprinklerCosts) {
+        int dryPlants = 0;
+        for (int d = 0; d < stencil.size(); d++) {
+            int i = cell / N + stencil.di[d];
+            int j = cell % N + stencil.dj[d];
+            if (valid(i, j) && cells[i][j] == CellType.PLANT && !wet[i*N + j]) {
+                dryPlants++;
+            }
+        }
+        return dryPlants == 0 ? Double.POSITIVE_INFINITY : (double) sprinklerCosts[cell] / dryPlants;
+    }
+
+    /**
+     * Sprinkler candidates covering each plant.
+     */
+    private int[][] coverage(boolean[] candidates) {
+        int[][] coverage = new int[N*N][];
+        int[] covering = new int[stencil.size()];
+        for (int plant = 0; plant < N*N; plant++) {
+            if (cells[plant / N][plant % N] != CellType.PLANT) {
+                continue;
+            }
+            int count = 0;
+            for (int d = 0; d < stencil.size(); d++) {
+                int i = plant / N + stencil.di[d];
+                int j = plant % N + stencil.dj[d];
+                if (valid(i, j) && candidates[i*N + j]) {
+                    covering[count++] = i*N + j;
+                }
+            }
+            coverage[plant] = Arrays.copyOf(covering, count);
+        }
+        return coverage;
+    }
+
+    private boolean[] spray(boolean[] sprinklers) {
+        boolean[] wet = new boolean[N*N];
+        for (int cell = 0; cell < N*N; cell++) {
+            if (!sprinklers[cell]) {
+                continue;
+            }
+            for (int d = 0; d < stencil.size(); d++) {
+                int i = cell / N + stencil.di[d];
+                int j = cell % N + stencil.dj[d];
+                if (valid(i, j)) {
+                    wet[i*N + j] = true;
+                }
+            }
+        }
+        return wet;
+    }
+
+    /**
+     * Stage two: grow a pipe tree from the sources, connecting the closest sprinkler by a cheapest turn aware path
+     * at each step.
+     *
+     * @param connected sprinklers reached by the tree
+     */
+    void route(Network network, Router router, boolean[] sprinklers, boolean[][] pipes, boolean[][] connected) {
+        int[] targets = new int[network.pipes()];
+        int count = 0;
+        for (int p = 0; p < network.pipes(); p++) {
+            if (sprinklers[network.pipeCells[p]]) {
+                targets[count++] = p;
+            }
+        }
+
+        for (int[] path : router.tree(Arrays.copyOf(targets, count))) {
+            for (int p : path) {
+                int cell = network.pipeCells[p];
+                pipes[network.row(cell)][network.column(cell)] = true;
+            }
+            int cell = network.pipeCells[path[0]];
+            connected[network.row(cell)][network.column(cell)] = true;
+        }
+    }
+
+    /**
+     * Remove the sprinklers whose plants are all irrigated by other sprinklers, then the pipes left dangling.
+     */
+    private void prune(boolean[][] pipes, boolean[][] sprinklers) {
+        int[] covering = new int[N*N];
+        for (int cell = 0; cell < N*N; cell++) {
+            if (sprinklers[cell / N][cell % N]) {
+                for (int d = 0; d < stencil.size(); d++) {
+                    int i = cell / N + stencil.di[d];
+                    int j = cell % N + stencil.dj[d];
+                    if (valid(i, j)) {
+                        covering[i*N + j]++;
+                    }
+                }
+            }
+        }
+
+        int[] queue = new int[N*N];
+        int tail = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (!sprinklers[cell / N][cell % N] || !redundant(cell, covering)) {
+                continue;
+            }
+            sprinklers[cell / N][cell % N] = false;
+            for (int d = 0; d < stencil.size(); d++) {
+                int i = cell / N + stencil.di[d];
+                int j = cell % N + stencil.dj[d];
+                if (valid(i, j)) {
+                    covering[i*N + j]--;
+                }
+            }
+            queue[tail++] = cell;
+        }
+
+        // a removed pipe may leave its neighbour dangling
+        int head = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int i = cell / N;
+            int j = cell % N;
+            if (!pipes[i][j] || sprinklers[i][j] || degree(pipes, i, j) > 1) {
+                continue;
+            }
+            pipes[i][j] = false;
+            for (int[] offset : OFFSETS) {
+                int i2 = i + offset[0];
+                int j2 = j + offset[1];
+                if (valid(i2, j2) && pipes[i2][j2]) {
+                    queue[tail++] = i2*N + j2;
+                }
+            }
+        }
+    }
+
+    /**
+     * Every plant irrigated by the sprinkler is irrigated by another one.
+     */
+    private boolean redundant(int cell, int[] covering) {
+        for (int d = 0; d < stencil.size(); d++) {
+            int i = cell / N + stencil.di[d];
+            int j = cell % N + stencil.dj[d];
+            if (valid(i, j) && cells[i][j] == CellType.PLANT && covering[i*N + j] < 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of adjacent pipes or sources.
+     */
+    private int degree(boolean[][] pipes, int i, int j) {
+        int degree = 0;
+        for (int[] offset : OFFSETS) {
+            int i2 = i + offset[0];
+            int j2 = j + offset[1];
+            if (valid(i2, j2) && (pipes[i2][j2] || cells[i2][j2] == CellType.SOURCE)) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+}
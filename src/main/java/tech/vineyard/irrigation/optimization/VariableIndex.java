@@ -0,0 +1,62 @@
+package tech.vineyard.irrigation.optimization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Proto indices of the variables read back from a solution, so that a solution can be read without the model objects.
+ */
+class VariableIndex {
+    final int N;
+
+    /**
+     * Cell of each pipe
+     */
+    final int[] pipeCells;
+
+    /**
+     * Per pipe, -1 when the variable does not exist
+     */
+    final int[] isPipe;
+    final int[] isSprinkler;
+
+    final int cost;
+
+    VariableIndex(int N, int[] pipeCells, int[] isPipe, int[] isSprinkler, int cost) {
+        this.N = N;
+        this.pipeCells = pipeCells;
+        this.isPipe = isPipe;
+        this.isSprinkler = isSprinkler;
+        this.cost = cost;
+    }
+
+    int pipes() {
+        return pipeCells.length;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(N);
+        out.writeInt(pipes());
+        for (int p = 0; p < pipes(); p++) {
+            out.writeInt(pipeCells[p]);
+            out.writeInt(isPipe[p]);
+            out.writeInt(isSprinkler[p]);
+        }
+        out.writeInt(cost);
+    }
+
+    static VariableIndex read(DataInput in) throws IOException {
+        int N = in.readInt();
+        int pipes = in.readInt();
+        int[] pipeCells = new int[pipes];
+        int[] isPipe = new int[pipes];
+        int[] isSprinkler = new int[pipes];
+        for (int p = 0; p < pipes; p++) {
+            pipeCells[p] = in.readInt();
+            isPipe[p] = in.readInt();
+            isSprinkler[p] = in.readInt();
+        }
+        return new VariableIndex(N, pipeCells, isPipe, isSprinkler, in.readInt());
+    }
+}
@@ -0,0 +1,433 @@
+package tech.vineyard.irrigation.optimization.heuristic;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.Solver;
+import tech.vineyard.irrigation.optimization.model.DiskStencil;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Simulated annealing on the pipe and sprinkler grids, without the native solver.
+ * <p>
+ * Starting from the Steiner heuristic, each move adds a pipe next to the network, removes a pipe whose neighbours
+ * stay connected around it, toggles a sprinkler, or shifts a sprinkler to an adjacent cell.
+ * Moves keep every pipe connected to a source, and their cost is evaluated incrementally:
+ * the pipe and sprinkler costs, the connectors of the cell and its neighbours,
+ * and the plants whose sprinkler count drops to or rises from 0.
+ * The annealing restarts from the best solution a few times, cooling down geometrically.
+ */
+public class LocalSearch implements Solver {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    /**
+     * Cells around a cell, in circular order, adjacent cells at even positions
+     */
+    private static final int[][] RING = new int[][] {
+            { -1, 0 },
+            { -1, 1 },
+            { 0, 1 },
+            { 1, 1 },
+            { 1, 0 },
+            { 1, -1 },
+            { 0, -1 },
+            { -1, -1 }
+    };
+
+    /**
+     * iterations between checks of the time limit
+     */
+    private static final int CHECK_INTERVAL = 256;
+
+    /**
+     * annealing cycles, each one cooling down from the best solution
+     */
+    private static final int CYCLES = 10;
+
+    /**
+     * start temperature, relative to the cost of a pipe with a connector
+     */
+    private static final double START_TEMPERATURE = 0.5;
+    private static final double END_TEMPERATURE = 0.1;
+
+    private final Input input;
+    private final int N;
+    private final double timeLimit;
+    private final Random random;
+
+    private final CellType[] cells;
+    private final boolean[] sprinklerCandidates;
+    private final int[] emptyCells;
+    private final DiskStencil stencil;
+
+    private final boolean[] pipes;
+    private final boolean[] sprinklers;
+
+    /**
+     * number of sprinklers spraying each cell
+     */
+    private final int[] sprayed;
+
+    private long cost;
+
+    /**
+     * cells updated by the current move, negated for sprinklers
+     */
+    private final int[] undoCells = new int[4];
+    private int undoSize;
+
+    private final boolean[] ring = new boolean[RING.length];
+
+    /**
+     * @param timeLimit annealing time, in seconds, after the construction of the initial solution
+     */
+    public LocalSearch(Input input, double timeLimit, long seed) {
+        this.input = input;
+        this.timeLimit = timeLimit;
+        N = input.N();
+        random = new Random(seed);
+
+        cells = new CellType[N*N];
+        int empty = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            cells[cell] = input.cells()[cell / N][cell % N];
+            if (cells[cell] == CellType.EMPTY) {
+                empty++;
+            }
+        }
+        emptyCells = new int[empty];
+        for (int cell = 0, k = 0; cell < N*N; cell++) {
+            if (cells[cell] == CellType.EMPTY) {
+                emptyCells[k++] = cell;
+            }
+        }
+
+        sprinklerCandidates = new SprinklerPresolve(input, false).candidates();
+        stencil = DiskStencil.of(input.Z());
+        pipes = new boolean[N*N];
+        sprinklers = new boolean[N*N];
+        sprayed = new int[N*N];
+    }
+
+    @Override
+    public Output solution() {
+        return solution(new SteinerHeuristic(input, sprinklerCandidates).solution());
+    }
+
+    /**
+     * Improve a connected solution.
+     */
+    public Output solution(Output initial) {
+        load(initial);
+
+        boolean[] bestPipes = pipes.clone();
+        boolean[] bestSprinklers = sprinklers.clone();
+        long bestCost = cost;
+
+        double startTemperature = START_TEMPERATURE * (input.P() + input.C());
+        double cycleTime = timeLimit / CYCLES;
+        for (int cycle = 0; cycle < CYCLES && emptyCells.length > 0; cycle++) {
+            restore(bestPipes, bestSprinklers, bestCost);
+            long cycleStart = System.nanoTime();
+            double temperature = startTemperature;
+            for (long iteration = 0; ; iteration++) {
+                if (iteration % CHECK_INTERVAL == 0) {
+                    double progress = (System.nanoTime() - cycleStart) / 1e9 / cycleTime;
+                    if (progress >= 1) {
+                        break;
+                    }
+                    temperature = startTemperature * Math.pow(END_TEMPERATURE / startTemperature, progress);
+                }
+
+                move(emptyCells[random.nextInt(emptyCells.length)], temperature);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    System.arraycopy(pipes, 0, bestPipes, 0, N*N);
+                    System.arraycopy(sprinklers, 0, bestSprinklers, 0, N*N);
+                }
+            }
+        }
+
+        boolean[][] p = new boolean[N][N];
+        boolean[][] s = new boolean[N][N];
+        for (int cell = 0; cell < N*N; cell++) {
+            p[cell / N][cell % N] = bestPipes[cell];
+            s[cell / N][cell % N] = bestSprinklers[cell];
+        }
+        return new Output(p, s, SolutionStatus.FEASIBLE, bestCost, 0);
+    }
+
+    private void restore(boolean[] pipes, boolean[] sprinklers, long cost) {
+        System.arraycopy(pipes, 0, this.pipes, 0, N*N);
+        System.arraycopy(sprinklers, 0, this.sprinklers, 0, N*N);
+        Arrays.fill(sprayed, 0);
+        for (int cell = 0; cell < N*N; cell++) {
+            if (sprinklers[cell]) {
+                spray(cell, 1);
+            }
+        }
+        this.cost = cost;
+    }
+
+    private void load(Output output) {
+        boolean[] p = new boolean[N*N];
+        boolean[] s = new boolean[N*N];
+        for (int cell = 0; cell < N*N; cell++) {
+            p[cell] = output.pipes()[cell / N][cell % N];
+            s[cell] = output.sprinklers()[cell / N][cell % N];
+        }
+        restore(p, s, output.cost());
+    }
+
+    /**
+     * Apply a random move on the cell, keeping it when the cost does not increase,
+     * or with a probability decreasing with the cost increase otherwise.
+     */
+    private void move(int cell, double temperature) {
+        undoSize = 0;
+        long delta = 0;
+        if (!pipes[cell]) {
+            // extend the network
+            if (degree(cell) == 0) {
+                return;
+            }
+            delta += togglePipe(cell);
+            if (sprinklerCandidates[cell] && random.nextBoolean()) {
+                delta += toggleSprinkler(cell);
+            }
+        } else {
+            int neighbour = neighbour(cell, random.nextInt(OFFSETS.length));
+            switch (random.nextInt(3)) {
+                case 0:
+                    // remove a pipe with its sprinkler
+                    if (!removable(cell)) {
+                        return;
+                    }
+                    if (sprinklers[cell]) {
+                        delta += toggleSprinkler(cell);
+                    }
+                    delta += togglePipe(cell);
+                    break;
+                case 1:
+                    if (!sprinklerCandidates[cell]) {
+                        return;
+                    }
+                    delta += toggleSprinkler(cell);
+                    break;
+                default:
+                    // shift the sprinkler to a neighbour, extending the network or retracting a leaf
+                    if (!sprinklers[cell] || neighbour < 0 || !sprinklerCandidates[neighbour] || sprinklers[neighbour]) {
+                        return;
+                    }
+                    if (!pipes[neighbour]) {
+                        delta += togglePipe(neighbour);
+                    }
+                    delta += toggleSprinkler(cell);
+                    delta += toggleSprinkler(neighbour);
+                    if (removable(cell)) {
+                        delta += togglePipe(cell);
+                    }
+                    break;
+            }
+        }
+
+        if (!accept(delta, temperature)) {
+            undo();
+        }
+    }
+
+    private boolean accept(long delta, double temperature) {
+        return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    /**
+     * @return empty cell in the direction, -1 if outside the grid or not empty
+     */
+    private int neighbour(int cell, int direction) {
+        int i = cell / N + OFFSETS[direction][0];
+        int j = cell % N + OFFSETS[direction][1];
+        return valid(i, j) && cells[i*N + j] == CellType.EMPTY ? i*N + j : -1;
+    }
+
+    private void undo() {
+        while (undoSize > 0) {
+            int cell = undoCells[--undoSize];
+            if (cell >= 0) {
+                setPipe(cell, !pipes[cell]);
+            } else {
+                setSprinkler(-cell - 1, !sprinklers[-cell - 1]);
+            }
+        }
+    }
+
+    private long togglePipe(int cell) {
+        undoCells[undoSize++] = cell;
+        return setPipe(cell, !pipes[cell]);
+    }
+
+    private long toggleSprinkler(int cell) {
+        undoCells[undoSize++] = -cell - 1;
+        return setSprinkler(cell, !sprinklers[cell]);
+    }
+
+    /**
+     * @return cost increase
+     */
+    private long setPipe(int cell, boolean pipe) {
+        long delta = -connectorCost(cell);
+        pipes[cell] = pipe;
+        delta += pipe ? input.P() : -input.P();
+        delta += connectorCost(cell);
+        cost += delta;
+        return delta;
+    }
+
+    /**
+     * @return cost increase
+     */
+    private long setSprinkler(int cell, boolean sprinkler) {
+        int changed = spray(cell, sprinkler ? 1 : -1);
+        sprinklers[cell] = sprinkler;
+        long delta = sprinkler
+                ? input.T() - (long) N*N * changed
+                : -input.T() + (long) N*N * changed;
+        cost += delta;
+        return delta;
+    }
+
+    /**
+     * Update the spray counts around the cell.
+     *
+     * @return number of plants becoming wet or dry
+     */
+    private int spray(int cell, int increment) {
+        int i = cell / N;
+        int j = cell % N;
+        int changed = 0;
+        for (int d = 0; d < stencil.size(); d++) {
+            int i2 = i + stencil.di[d];
+            int j2 = j + stencil.dj[d];
+            if (!valid(i2, j2)) {
+                continue;
+            }
+            int cell2 = i2*N + j2;
+            if (cells[cell2] == CellType.PLANT && (increment > 0 ? sprayed[cell2] == 0 : sprayed[cell2] == 1)) {
+                changed++;
+            }
+            sprayed[cell2] += increment;
+        }
+        return changed;
+    }
+
+    /**
+     * Connector cost of the cell and its neighbours, the only ones depending on the pipe of the cell.
+     */
+    private long connectorCost(int cell) {
+        long connectors = connectors(cell);
+        int i = cell / N;
+        int j = cell % N;
+        for (int[] offset : OFFSETS) {
+            int i2 = i + offset[0];
+            int j2 = j + offset[1];
+            if (valid(i2, j2)) {
+                connectors += connectors(i2*N + j2);
+            }
+        }
+        return connectors * input.C();
+    }
+
+    /**
+     * Number of connectors of an empty cell: 0 when straight, otherwise the number of adjacent pipes.
+     */
+    private int connectors(int cell) {
+        if (cells[cell] != CellType.EMPTY) {
+            return 0;
+        }
+
+        int i = cell / N;
+        int j = cell % N;
+        boolean up = isPipeOrSource(i - 1, j);
+        boolean down = isPipeOrSource(i + 1, j);
+        boolean left = isPipeOrSource(i, j - 1);
+        boolean right = isPipeOrSource(i, j + 1);
+        if (up && down && !left && !right || left && right && !up && !down) {
+            return 0;
+        }
+
+        int connectors = 0;
+        for (int[] offset : OFFSETS) {
+            int i2 = i + offset[0];
+            int j2 = j + offset[1];
+            if (valid(i2, j2) && pipes[i2*N + j2]) {
+                connectors++;
+            }
+        }
+        return connectors;
+    }
+
+    /**
+     * Whether the adjacent pipes and sources stay connected without the pipe of the cell,
+     * through the 8 cells around it.
+     */
+    private boolean removable(int cell) {
+        int i = cell / N;
+        int j = cell % N;
+        for (int r = 0; r < RING.length; r++) {
+            ring[r] = isPipeOrSource(i + RING[r][0], j + RING[r][1]);
+        }
+
+        int gap = 0;
+        while (gap < RING.length && ring[gap]) {
+            gap++;
+        }
+        if (gap == RING.length) {
+            return true;
+        }
+
+        // count the runs of consecutive ring cells containing an adjacent cell
+        int runs = 0;
+        boolean adjacent = false;
+        for (int k = 1; k <= RING.length; k++) {
+            int r = (gap + k) % RING.length;
+            if (ring[r]) {
+                adjacent |= r % 2 == 0;
+            } else {
+                if (adjacent) {
+                    runs++;
+                }
+                adjacent = false;
+            }
+        }
+        return runs <= 1;
+    }
+
+    /**
+     * Number of adjacent pipes and sources.
+     */
+    private int degree(int cell) {
+        int degree = 0;
+        for (int[] offset : OFFSETS) {
+            if (isPipeOrSource(cell / N + offset[0], cell % N + offset[1])) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    private boolean isPipeOrSource(int i, int j) {
+        return valid(i, j) && (pipes[i*N + j] || cells[i*N + j] == CellType.SOURCE);
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+}
@@ -0,0 +1,228 @@
+package tech.vineyard.irrigation.optimization.heuristic;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.SolutionStatus;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.model.DiskStencil;
+
+import java.util.Arrays;
+
+/**
+ * Constructive heuristic growing a pipe tree from the sources.
+ * <p>
+ * At each step, the sprinkler position with the best gain is connected to the tree by a shortest path,
+ * the gain being the penalty of the newly irrigated plants minus the sprinkler, pipe and connector costs.
+ * Useless sprinklers and dangling pipes are then removed.
+ */
+public class SteinerHeuristic {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Input input;
+    private final int N;
+    private final CellType[][] cells;
+    private final CostEvaluator costEvaluator;
+    private final DiskStencil stencil;
+
+    /**
+     * cells allowed to hold a sprinkler, by cell id i*N + j
+     */
+    private final boolean[] sprinklerCandidates;
+
+    public SteinerHeuristic(Input input) {
+        this(input, emptyCells(input));
+    }
+
+    public SteinerHeuristic(Input input, boolean[] sprinklerCandidates) {
+        this.input = input;
+        this.sprinklerCandidates = sprinklerCandidates;
+        N = input.N();
+        cells = input.cells();
+        costEvaluator = new CostEvaluator(input);
+        stencil = DiskStencil.of(input.Z());
+    }
+
+    public Output solution() {
+        boolean[][] pipes = new boolean[N][N];
+        boolean[][] sprinklers = new boolean[N][N];
+        boolean[][] wet = new boolean[N][N];
+
+        int[] distance = new int[N*N];
+        int[] parent = new int[N*N];
+        while (true) {
+            distanceToTree(pipes, distance, parent);
+
+            int best = -1;
+            long bestGain = 0;
+            for (int cell = 0; cell < N*N; cell++) {
+                int i = cell / N;
+                int j = cell % N;
+                if (distance[cell] < 0 || !sprinklerCandidates[cell] || sprinklers[i][j]) {
+                    continue;
+                }
+
+                long gain = (long) N*N * dryPlants(wet, i, j)
+                        - input.T()
+                        - (long) input.P() * distance[cell]
+                        - 2L * input.C();
+                if (gain > bestGain) {
+                    best = cell;
+                    bestGain = gain;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+
+            for (int cell = best; cell >= 0 && !pipes[cell / N][cell % N]; cell = parent[cell]) {
+                pipes[cell / N][cell % N] = true;
+            }
+            sprinklers[best / N][best % N] = true;
+            spray(wet, best / N, best % N);
+        }
+
+        removeDanglingPipes(pipes, sprinklers);
+        removeUselessSprinklers(pipes, sprinklers);
+
+        return new Output(pipes, sprinklers, SolutionStatus.FEASIBLE, costEvaluator.cost(pipes, sprinklers), 0);
+    }
+
+    /**
+     * Breadth first search from the sources and the pipes.
+     * The distance is the number of pipes to add, -1 when unreachable.
+     */
+    private void distanceToTree(boolean[][] pipes, int[] distance, int[] parent) {
+        Arrays.fill(distance, -1);
+        Arrays.fill(parent, -1);
+
+        int[] queue = new int[N*N];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cells[i][j] == CellType.SOURCE || pipes[i][j]) {
+                    distance[i*N + j] = 0;
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int[] offset : OFFSETS) {
+                int i2 = cell / N + offset[0];
+                int j2 = cell % N + offset[1];
+                if (!valid(i2, j2) || cells[i2][j2] != CellType.EMPTY || distance[i2*N + j2] >= 0) {
+                    continue;
+                }
+                distance[i2*N + j2] = distance[cell] + 1;
+                parent[i2*N + j2] = cell;
+                queue[tail++] = i2*N + j2;
+            }
+        }
+    }
+
+    private void removeDanglingPipes(boolean[][] pipes, boolean[][] sprinklers) {
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            for (int i = 0; i < N; i++) {
+                for (int j = 0; j < N; j++) {
+                    if (pipes[i][j] && !sprinklers[i][j] && degree(pipes, i, j) <= 1) {
+                        pipes[i][j] = false;
+                        removed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void removeUselessSprinklers(boolean[][] pipes, boolean[][] sprinklers) {
+        long cost = costEvaluator.cost(pipes, sprinklers);
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (!sprinklers[i][j]) {
+                    continue;
+                }
+
+                boolean[][] p = copy(pipes);
+                boolean[][] s = copy(sprinklers);
+                s[i][j] = false;
+                removeDanglingPipes(p, s);
+
+                long c = costEvaluator.cost(p, s);
+                if (c < cost) {
+                    cost = c;
+                    copy(p, pipes);
+                    copy(s, sprinklers);
+                }
+            }
+        }
+    }
+
+    private int dryPlants(boolean[][] wet, int i, int j) {
+        int plants = 0;
+        for (int k = 0; k < stencil.size(); k++) {
+            int i2 = i + stencil.di[k];
+            int j2 = j + stencil.dj[k];
+            if (valid(i2, j2) && cells[i2][j2] == CellType.PLANT && !wet[i2][j2]) {
+                plants++;
+            }
+        }
+        return plants;
+    }
+
+    private void spray(boolean[][] wet, int i, int j) {
+        for (int k = 0; k < stencil.size(); k++) {
+            if (valid(i + stencil.di[k], j + stencil.dj[k])) {
+                wet[i + stencil.di[k]][j + stencil.dj[k]] = true;
+            }
+        }
+    }
+
+    /**
+     * Number of adjacent pipes or sources.
+     */
+    private int degree(boolean[][] pipes, int i, int j) {
+        int degree = 0;
+        for (int[] offset : OFFSETS) {
+            int i2 = i + offset[0];
+            int j2 = j + offset[1];
+            if (valid(i2, j2) && (pipes[i2][j2] || cells[i2][j2] == CellType.SOURCE)) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+
+    private static boolean[][] copy(boolean[][] b) {
+        return Arrays.stream(b)
+                .map(boolean[]::clone)
+                .toArray(boolean[][]::new);
+    }
+
+    private static void copy(boolean[][] from, boolean[][] to) {
+        for (int i = 0; i < from.length; i++) {
+            System.arraycopy(from[i], 0, to[i], 0, from[i].length);
+        }
+    }
+
+    private static boolean[] emptyCells(Input input) {
+        int N = input.N();
+        boolean[] empty = new boolean[N*N];
+        for (int cell = 0; cell < N*N; cell++) {
+            empty[cell] = input.cells()[cell / N][cell % N] == CellType.EMPTY;
+        }
+        return empty;
+    }
+}
@@ -0,0 +1,141 @@
+package tech.vineyard.irrigation.optimization.lns;
+
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolutionListener;
+import tech.vineyard.irrigation.optimization.Solver;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Improve an incumbent by repeatedly solving a window of the grid, the other cells being fixed.
+ * <p>
+ * Each thread owns an optimizer whose model is built once, and solves random neighbourhoods in short time slices
+ * until the time limit of the solver configuration. Improvements are shared between the threads.
+ */
+public class LargeNeighbourhoodSearch implements Solver {
+
+    private static final int WINDOW_SIZE = 10;
+
+    private final Input input;
+    private final SolverConfig solverConfig;
+    private final ModelConfig modelConfig;
+    private final int threads;
+    private final double sliceTime;
+
+    private final List<SolutionListener> listeners = new ArrayList<>();
+    private final LnsReport report = new LnsReport();
+
+    private Output incumbent;
+    private long start;
+
+    /**
+     * @param solverConfig time limit of the whole search and random seed, each slice using a single worker
+     * @param sliceTime time limit of each neighbourhood solve, in seconds
+     */
+    public LargeNeighbourhoodSearch(Input input, SolverConfig solverConfig, ModelConfig modelConfig, int threads, double sliceTime) {
+        if (solverConfig.timeLimit() <= 0) {
+            throw new IllegalArgumentException("Large neighbourhood search requires a time limit");
+        }
+        this.input = input;
+        this.solverConfig = solverConfig;
+        this.modelConfig = modelConfig;
+        this.threads = threads;
+        this.sliceTime = sliceTime;
+    }
+
+    /**
+     * Register a listener notified of every improvement of the incumbent.
+     */
+    public void addListener(SolutionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Statistics of the last search, left to the caller to print.
+     */
+    public LnsReport report() {
+        return report;
+    }
+
+    @Override
+    public Output solution() {
+        return solution(new SteinerHeuristic(input, new SprinklerPresolve(input, modelConfig.pruneDominatedSprinklers()).candidates())
+                .solution());
+    }
+
+    public Output solution(Output initial) {
+        start = System.nanoTime();
+        incumbent = initial;
+        listeners.forEach(listener -> listener.onSolution(initial, 0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(solverConfig.randomSeed() + t);
+                workers.add(() -> search(random));
+            }
+            for (Future<Void> future : executor.invokeAll(workers)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report.complete(initial.cost(), incumbent.cost(), elapsed());
+        return incumbent;
+    }
+
+    private Void search(Random random) {
+        Optimizer optimizer = new Optimizer(input, solverConfig.withWorkers(1), modelConfig);
+        int size = Math.min(WINDOW_SIZE, input.N());
+
+        Neighbourhood[] neighbourhoods = Neighbourhood.values();
+        double remaining;
+        while ((remaining = solverConfig.timeLimit() - elapsed()) > 0 && !Thread.currentThread().isInterrupted()) {
+            Output current = incumbent();
+            Neighbourhood neighbourhood = neighbourhoods[random.nextInt(neighbourhoods.length)];
+            boolean[][] window = neighbourhood.window(input, current, random, size);
+            Output output = optimizer.neighbourhoodSolution(current, window, Math.min(sliceTime, remaining));
+            accept(neighbourhood, output);
+        }
+        return null;
+    }
+
+    private synchronized Output incumbent() {
+        return incumbent;
+    }
+
+    private synchronized void accept(Neighbourhood neighbourhood, Output output) {
+        long costDecrease = incumbent.cost() - output.cost();
+        report.record(neighbourhood, costDecrease);
+        if (costDecrease <= 0) {
+            return;
+        }
+
+        incumbent = output;
+        double wallTime = elapsed();
+        listeners.forEach(listener -> listener.onSolution(output, wallTime));
+    }
+
+    private double elapsed() {
+        return (System.nanoTime() - start) / 1e9;
+    }
+}
@@ -0,0 +1,81 @@
+package tech.vineyard.irrigation.optimization.lns;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Attempts and improvements of each neighbourhood during a large neighbourhood search.
+ */
+public class LnsReport {
+
+    public static class Statistics {
+        public int attempts;
+        public int improvements;
+        public long costDecrease;
+
+        @Override
+        public String toString() {
+            return String.format("attempts=%d improvements=%d costDecrease=%d", attempts, improvements, costDecrease);
+        }
+    }
+
+    private final Map<Neighbourhood, Statistics> statistics = new EnumMap<>(Neighbourhood.class);
+
+    private long initialCost;
+    private long finalCost;
+    private double wallTime;
+
+    LnsReport() {
+        for (Neighbourhood neighbourhood : Neighbourhood.values()) {
+            statistics.put(neighbourhood, new Statistics());
+        }
+    }
+
+    synchronized void record(Neighbourhood neighbourhood, long costDecrease) {
+        Statistics neighbourhoodStatistics = statistics.get(neighbourhood);
+        neighbourhoodStatistics.attempts++;
+        if (costDecrease > 0) {
+            neighbourhoodStatistics.improvements++;
+            neighbourhoodStatistics.costDecrease += costDecrease;
+        }
+    }
+
+    void complete(long initialCost, long finalCost, double wallTime) {
+        this.initialCost = initialCost;
+        this.finalCost = finalCost;
+        this.wallTime = wallTime;
+    }
+
+    public Statistics statistics(Neighbourhood neighbourhood) {
+        return statistics.get(neighbourhood);
+    }
+
+    public long initialCost() {
+        return initialCost;
+    }
+
+    public long finalCost() {
+        return finalCost;
+    }
+
+    public double wallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Cost decrease per second of search.
+     */
+    public double improvementPerSecond() {
+        return wallTime > 0 ? (initialCost - finalCost) / wallTime : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("initialCost=%d finalCost=%d wallTime=%.3fs improvementPerSecond=%.1f%n",
+                initialCost, finalCost, wallTime, improvementPerSecond()));
+        statistics.forEach((neighbourhood, neighbourhoodStatistics) ->
+                sb.append(String.format("  %s: %s%n", neighbourhood, neighbourhoodStatistics)));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package tech.vineyard.irrigation.optimization.lns;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+import tech.vineyard.irrigation.Output;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Window of cells freed around the incumbent, the other cells keeping their pipes and sprinklers.
+ */
+public enum Neighbourhood {
+    /**
+     * square at a random position
+     */
+    RECTANGLE {
+        @Override
+        boolean[][] window(Input input, Output incumbent, Random random, int size) {
+            int N = input.N();
+            return square(N, random.nextInt(N), random.nextInt(N), size);
+        }
+    },
+
+    /**
+     * square centred on a random source
+     */
+    SOURCE {
+        @Override
+        boolean[][] window(Input input, Output incumbent, Random random, int size) {
+            List<int[]> sources = cells(input, (i, j) -> input.cells()[i][j] == CellType.SOURCE);
+            return around(input.N(), sources, 1, random, size / 2);
+        }
+    },
+
+    /**
+     * cells within the spray radius of a few random sprinklers of the incumbent
+     */
+    SPRINKLERS {
+        @Override
+        boolean[][] window(Input input, Output incumbent, Random random, int size) {
+            List<int[]> sprinklers = cells(input, (i, j) -> incumbent.sprinklers()[i][j]);
+            if (sprinklers.isEmpty()) {
+                return RECTANGLE.window(input, incumbent, random, size);
+            }
+            return around(input.N(), sprinklers, SPRINKLERS_PER_WINDOW, random, input.Z());
+        }
+    };
+
+    private static final int SPRINKLERS_PER_WINDOW = 3;
+
+    /**
+     * @param size side of the window, in cells
+     * @return whether each cell is free
+     */
+    abstract boolean[][] window(Input input, Output incumbent, Random random, int size);
+
+    private interface CellFilter {
+        boolean test(int i, int j);
+    }
+
+    private static List<int[]> cells(Input input, CellFilter filter) {
+        List<int[]> cells = new ArrayList<>();
+        for (int i = 0; i < input.N(); i++) {
+            for (int j = 0; j < input.N(); j++) {
+                if (filter.test(i, j)) {
+                    cells.add(new int[] { i, j });
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Free the cells within the radius of some random centres.
+     */
+    private static boolean[][] around(int N, List<int[]> centres, int count, Random random, int radius) {
+        boolean[][] window = new boolean[N][N];
+        for (int k = 0; k < count; k++) {
+            int[] centre = centres.get(random.nextInt(centres.size()));
+            fill(window, centre[0] - radius, centre[1] - radius, 2 * radius + 1);
+        }
+        return window;
+    }
+
+    private static boolean[][] square(int N, int i, int j, int size) {
+        boolean[][] window = new boolean[N][N];
+        fill(window, Math.min(i, N - size), Math.min(j, N - size), size);
+        return window;
+    }
+
+    private static void fill(boolean[][] window, int top, int left, int size) {
+        int N = window.length;
+        for (int i = Math.max(0, top); i < Math.min(N, top + size); i++) {
+            for (int j = Math.max(0, left); j < Math.min(N, left + size); j++) {
+                window[i][j] = true;
+            }
+        }
+    }
+}
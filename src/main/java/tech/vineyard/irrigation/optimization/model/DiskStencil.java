@@ -0,0 +1,50 @@
+package tech.vineyard.irrigation.optimization.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Offsets of the cells within the spray radius of a sprinkler, cached per radius.
+ */
+public class DiskStencil {
+
+    private static final Map<Integer, DiskStencil> STENCILS = new ConcurrentHashMap<>();
+
+    /**
+     * row offsets
+     */
+    public final int[] di;
+
+    /**
+     * column offsets
+     */
+    public final int[] dj;
+
+    private DiskStencil(int Z) {
+        List<int[]> offsets = new ArrayList<>();
+        for (int i = -Z; i <= Z; i++) {
+            for (int j = -Z; j <= Z; j++) {
+                if (i*i + j*j <= Z*Z) {
+                    offsets.add(new int[] { i, j });
+                }
+            }
+        }
+
+        di = offsets.stream()
+                .mapToInt(offset -> offset[0])
+                .toArray();
+        dj = offsets.stream()
+                .mapToInt(offset -> offset[1])
+                .toArray();
+    }
+
+    public static DiskStencil of(int Z) {
+        return STENCILS.computeIfAbsent(Z, DiskStencil::new);
+    }
+
+    public int size() {
+        return di.length;
+    }
+}
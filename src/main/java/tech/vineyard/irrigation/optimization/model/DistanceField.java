@@ -0,0 +1,192 @@
+package tech.vineyard.irrigation.optimization.model;
+
+import java.util.Arrays;
+
+/**
+ * Cheapest pipe paths from a set of starts, over states expanded by the direction of the last move.
+ * <p>
+ * A state {@code 4*pipe + d} is the pipe reached by a move in direction d.
+ * Starts are sources, whose first pipe is paid, or pipes already laid, which are free and can branch in any direction.
+ * Adding starts only decreases the distances, so the field is updated by a Dijkstra search from the new starts.
+ */
+public class DistanceField {
+    private final Network network;
+    private final Router router;
+
+    private final long[] distance;
+    private final int[] parent;
+
+    /**
+     * pipes already laid, free to branch from
+     */
+    private final boolean[] start;
+
+    private final StateHeap heap;
+
+    DistanceField(Network network, Router router) {
+        this.network = network;
+        this.router = router;
+        distance = new long[4 * network.pipes()];
+        parent = new int[4 * network.pipes()];
+        start = new boolean[network.pipes()];
+        Arrays.fill(distance, Long.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        heap = new StateHeap(4 * network.pipes());
+    }
+
+    /**
+     * Start from the sources, paying their first pipe.
+     */
+    public void addSources(int[] sources) {
+        for (int s : sources) {
+            for (int a = network.sourceArcOffsets[s]; a < network.sourceArcOffsets[s + 1]; a++) {
+                int pipe = network.sourceArcPipes[a];
+                improve(4*pipe + router.sourceArcDirection(a), router.stepCost(pipe), -1);
+            }
+        }
+        search();
+    }
+
+    /**
+     * Start from pipes already laid, for free.
+     */
+    public void addPipes(int[] pipes) {
+        for (int pipe : pipes) {
+            start[pipe] = true;
+            improve(4*pipe, 0, -1);
+        }
+        search();
+    }
+
+    /**
+     * @return cost of the cheapest path to the pipe, {@link Long#MAX_VALUE} when unreachable
+     */
+    public long distance(int pipe) {
+        long best = Long.MAX_VALUE;
+        for (int d = 0; d < 4; d++) {
+            best = Math.min(best, distance[4*pipe + d]);
+        }
+        return best;
+    }
+
+    /**
+     * @return pipes of the cheapest path to the pipe, from the pipe back to the starts, without the pipes already laid
+     */
+    public int[] path(int pipe) {
+        int state = 4*pipe;
+        for (int d = 1; d < 4; d++) {
+            if (distance[4*pipe + d] < distance[state]) {
+                state = 4*pipe + d;
+            }
+        }
+        if (distance[state] == Long.MAX_VALUE) {
+            return new int[0];
+        }
+
+        int[] path = new int[network.pipes()];
+        int length = 0;
+        for (; state >= 0 && !start[state / 4]; state = parent[state]) {
+            path[length++] = state / 4;
+        }
+        return Arrays.copyOf(path, length);
+    }
+
+    private void search() {
+        while (!heap.isEmpty()) {
+            int state = heap.poll();
+            int pipe = state / 4;
+            for (int a = network.pipeArcOffsets[pipe]; a < network.pipeArcOffsets[pipe + 1]; a++) {
+                int end = network.pipeArcEnds[a];
+                int d = router.pipeArcDirection(a);
+                long cost = distance[state] + router.stepCost(end);
+                if (!start[pipe] && d != state % 4) {
+                    cost += router.turnCost();
+                }
+                improve(4*end + d, cost, state);
+            }
+        }
+    }
+
+    private void improve(int state, long cost, int from) {
+        if (cost < distance[state]) {
+            distance[state] = cost;
+            parent[state] = from;
+            heap.push(state, cost);
+        }
+    }
+
+    /**
+     * Binary min heap of states, each state at most once, keyed by its distance.
+     */
+    private static class StateHeap {
+        private final int[] states;
+        private final long[] keys;
+        private final int[] position;
+        private int size;
+
+        StateHeap(int capacity) {
+            states = new int[capacity];
+            keys = new long[capacity];
+            position = new int[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Insert the state, or decrease its key.
+         */
+        void push(int state, long key) {
+            int k = position[state];
+            if (k < 0) {
+                k = size++;
+            }
+            siftUp(k, state, key);
+        }
+
+        int poll() {
+            int top = states[0];
+            position[top] = -1;
+            size--;
+            if (size > 0) {
+                siftDown(0, states[size], keys[size]);
+            }
+            return top;
+        }
+
+        private void siftUp(int k, int state, long key) {
+            while (k > 0) {
+                int parent = (k - 1) / 2;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                set(k, states[parent], keys[parent]);
+                k = parent;
+            }
+            set(k, state, key);
+        }
+
+        private void siftDown(int k, int state, long key) {
+            while (2*k + 1 < size) {
+                int child = 2*k + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                set(k, states[child], keys[child]);
+                k = child;
+            }
+            set(k, state, key);
+        }
+
+        private void set(int k, int state, long key) {
+            states[k] = state;
+            keys[k] = key;
+            position[state] = k;
+        }
+    }
+}
@@ -1,107 +1,211 @@
 package tech.vineyard.irrigation.optimization.model;
 
-import tech.vineyard.irrigation.CellType;
-import tech.vineyard.irrigation.optimization.model.arcs.PipeArc;
-import tech.vineyard.irrigation.optimization.model.arcs.PlantArc;
-import tech.vineyard.irrigation.optimization.model.arcs.SourceArc;
-import tech.vineyard.irrigation.optimization.model.cells.Cell;
-import tech.vineyard.irrigation.optimization.model.cells.Pipe;
-import tech.vineyard.irrigation.optimization.model.cells.Plant;
-import tech.vineyard.irrigation.optimization.model.cells.Source;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
+import java.util.Arrays;
+
+/**
+ * Network with dense integer ids.
+ * <p>
+ * Cells are identified by {@code i*N + j}. Pipes, sources and plants are numbered from 0,
+ * arcs are numbered from 0 per type and stored in compressed sparse row form:
+ * the arcs of row {@code r} are {@code offsets[r] <= a < offsets[r + 1]}.
+ */
 public class Network {
+    public final int N;
+
     /**
-     * Source
+     * Cell of each pipe
      */
-    public final Map<Source, List<SourceArc>> sourceAdjacency = new HashMap<>();
+    public final int[] pipeCells;
 
     /**
-     * Pipe
+     * Cell of each source
      */
-    public final Map<Pipe, List<PipeArc>> pipeAdjacency = new HashMap<>();
+    public final int[] sourceCells;
 
     /**
-     * Sink
+     * Cell of each plant
      */
-    public final Map<Plant, List<PlantArc>> plantAdjacency = new HashMap<>();
+    public final int[] plantCells;
 
-    public final Map<Pipe, List<SourceArc>> pipeSourceAdjacency = new HashMap<>();
-    public final Map<Pipe, List<PlantArc>> pipePlantAdjacency = new HashMap<>();
+    /**
+     * Whether a sprinkler can be installed on each pipe
+     */
+    public final boolean[] sprinklerCandidates;
 
-    public Cell createCell(CellType cellType, int i, int j) {
-        switch (cellType) {
-            case SOURCE:
-                return addSource(new Source(i, j));
-            case PLANT:
-                return addPlant(new Plant(i, j));
-            case EMPTY:
-                return addPipe(new Pipe(i, j));
-            default:
-                return null;
-        }
+    /**
+     * Pipe -> pipe arcs, grouped by start pipe
+     */
+    public final int[] pipeArcOffsets;
+    public final int[] pipeArcStarts;
+    public final int[] pipeArcEnds;
+
+    /**
+     * Arc between the same pipes, in the opposite direction
+     */
+    public final int[] reverseArcs;
+
+    /**
+     * Source -> pipe arcs, grouped by source
+     */
+    public final int[] sourceArcOffsets;
+    public final int[] sourceArcSources;
+    public final int[] sourceArcPipes;
+
+    /**
+     * Source -> pipe arcs, grouped by pipe
+     */
+    public final int[] pipeSourceArcOffsets;
+    public final int[] pipeSourceArcs;
+
+    /**
+     * Pipe -> plant arcs, grouped by plant
+     */
+    public final int[] plantArcOffsets;
+    public final int[] plantArcPipes;
+    public final int[] plantArcPlants;
+
+    /**
+     * Pipe -> plant arcs, grouped by pipe
+     */
+    public final int[] pipePlantArcOffsets;
+    public final int[] pipePlantArcs;
+
+    private final int[] pipeIndex;
+    private final int[] sourceIndex;
+    private final int[] plantIndex;
+
+    Network(int N, int[] pipeCells, int[] sourceCells, int[] plantCells, boolean[] sprinklerCandidates,
+            int[] pipeArcOffsets, int[] pipeArcEnds, int[] reverseArcs,
+            int[] sourceArcOffsets, int[] sourceArcPipes,
+            int[] plantArcOffsets, int[] plantArcPipes) {
+        this.N = N;
+        this.pipeCells = pipeCells;
+        this.sourceCells = sourceCells;
+        this.plantCells = plantCells;
+        this.sprinklerCandidates = sprinklerCandidates;
+        this.pipeArcOffsets = pipeArcOffsets;
+        this.pipeArcEnds = pipeArcEnds;
+        this.reverseArcs = reverseArcs;
+        this.sourceArcOffsets = sourceArcOffsets;
+        this.sourceArcPipes = sourceArcPipes;
+        this.plantArcOffsets = plantArcOffsets;
+        this.plantArcPipes = plantArcPipes;
+
+        pipeIndex = index(pipeCells, N*N);
+        sourceIndex = index(sourceCells, N*N);
+        plantIndex = index(plantCells, N*N);
+
+        pipeArcStarts = rows(pipeArcOffsets);
+        sourceArcSources = rows(sourceArcOffsets);
+        plantArcPlants = rows(plantArcOffsets);
+
+        pipeSourceArcOffsets = new int[pipes() + 1];
+        pipeSourceArcs = transpose(sourceArcPipes, pipeSourceArcOffsets);
+
+        pipePlantArcOffsets = new int[pipes() + 1];
+        pipePlantArcs = transpose(plantArcPipes, pipePlantArcOffsets);
     }
 
-    public void createArc(Cell start, Cell end) {
-        if (start instanceof Source && end instanceof Pipe) {
-            addSourcePipe((Source) start, (Pipe) end);
-        } else if (start instanceof Pipe && end instanceof Pipe) {
-            addPipePipe((Pipe) start, (Pipe) end);
-        } else if (start instanceof Pipe && end instanceof Plant) {
-            addPipePlant((Pipe) start, (Plant) end);
-        }
+    public int pipes() {
+        return pipeCells.length;
     }
 
-    private Source addSource(Source source) {
-        sourceAdjacency.put(source, new ArrayList<>());
-        return source;
+    public int sources() {
+        return sourceCells.length;
     }
 
-    private Pipe addPipe(Pipe pipe) {
-        pipeAdjacency.put(pipe, new ArrayList<>());
-        pipeSourceAdjacency.put(pipe, new ArrayList<>());
-        pipePlantAdjacency.put(pipe, new ArrayList<>());
-        return pipe;
+    public int plants() {
+        return plantCells.length;
     }
 
-    private Plant addPlant(Plant plant) {
-        plantAdjacency.put(plant, new ArrayList<>());
-        return plant;
+    public int pipeArcs() {
+        return pipeArcEnds.length;
     }
 
-    private void addSourcePipe(Source start, Pipe end) {
-        SourceArc sourceArc = new SourceArc(start, end);
-        sourceAdjacency.get(start).add(sourceArc);
-        pipeSourceAdjacency.get(end).add(sourceArc);
+    public int sourceArcs() {
+        return sourceArcPipes.length;
     }
 
-    private void addPipePipe(Pipe start, Pipe end) {
-        pipeAdjacency.get(start).add(new PipeArc(start, end));
+    public int plantArcs() {
+        return plantArcPipes.length;
     }
 
-    private void addPipePlant(Pipe start, Plant end) {
-        PlantArc plantArc = new PlantArc(start, end);
-        plantAdjacency.get(end).add(plantArc);
-        pipePlantAdjacency.get(start).add(plantArc);
+    /**
+     * @return pipe on the cell, -1 if the cell is not a pipe
+     */
+    public int pipeIndex(int cell) {
+        return pipeIndex[cell];
     }
 
-    public PipeArc reverseArc(PipeArc pipeArc) {
-        return pipeAdjacency.get(pipeArc.end)
-                .stream()
-                .filter(reverseArc -> reverseArc.end.equals(pipeArc.start))
-                .findAny()
-                .get();
+    /**
+     * @return source on the cell, -1 if the cell is not a source
+     */
+    public int sourceIndex(int cell) {
+        return sourceIndex[cell];
     }
 
-    public List<SourceArc> sourceArcs(Pipe pipe) {
-        return pipeSourceAdjacency.get(pipe);
+    /**
+     * @return plant on the cell, -1 if the cell is not a plant
+     */
+    public int plantIndex(int cell) {
+        return plantIndex[cell];
+    }
+
+    public int cell(int i, int j) {
+        return i*N + j;
+    }
+
+    public int row(int cell) {
+        return cell / N;
+    }
+
+    public int column(int cell) {
+        return cell % N;
+    }
+
+    /**
+     * Arc between the same pipes, in the opposite direction.
+     */
+    public int reverseArc(int pipeArc) {
+        return reverseArcs[pipeArc];
+    }
+
+    private static int[] index(int[] cells, int size) {
+        int[] index = new int[size];
+        Arrays.fill(index, -1);
+        for (int k = 0; k < cells.length; k++) {
+            index[cells[k]] = k;
+        }
+        return index;
+    }
+
+    /**
+     * Row of each arc of a compressed sparse row.
+     */
+    private static int[] rows(int[] offsets) {
+        int[] rows = new int[offsets[offsets.length - 1]];
+        for (int r = 0; r + 1 < offsets.length; r++) {
+            Arrays.fill(rows, offsets[r], offsets[r + 1], r);
+        }
+        return rows;
     }
 
-    public List<PlantArc> plantArcs(Pipe pipe) {
-        return pipePlantAdjacency.get(pipe);
+    /**
+     * Group the arcs by key, filling the offsets of the compressed sparse row.
+     */
+    private static int[] transpose(int[] keys, int[] offsets) {
+        for (int key : keys) {
+            offsets[key + 1]++;
+        }
+        for (int r = 0; r + 1 < offsets.length; r++) {
+            offsets[r + 1] += offsets[r];
+        }
+
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        int[] arcs = new int[keys.length];
+        for (int a = 0; a < keys.length; a++) {
+            arcs[next[keys[a]]++] = a;
+        }
+        return arcs;
     }
 }
@@ -0,0 +1,173 @@
+package tech.vineyard.irrigation.optimization.model;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+
+import java.util.Arrays;
+
+/**
+ * Build the network of a grid.
+ */
+public class NetworkBuilder {
+    /**
+     * Neighbour offsets, the opposite of direction d being (d + 2) % 4
+     */
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Input input;
+    private final int N;
+    private final CellType[][] gridTypes;
+
+    /**
+     * cells where a sprinkler can be installed
+     */
+    private final boolean[] sprinklerCandidates;
+
+    /**
+     * cells of the network, the other cells being left out
+     */
+    private final boolean[] region;
+
+    public NetworkBuilder(Input input) {
+        this(input, emptyCells(input));
+    }
+
+    public NetworkBuilder(Input input, boolean[] sprinklerCandidates) {
+        this(input, sprinklerCandidates, allCells(input));
+    }
+
+    public NetworkBuilder(Input input, boolean[] sprinklerCandidates, boolean[] region) {
+        this.input = input;
+        this.sprinklerCandidates = sprinklerCandidates;
+        this.region = region;
+        N = input.N();
+        gridTypes = input.cells();
+    }
+
+    public Network build() {
+        // create nodes
+        int[] pipeCells = cells(CellType.EMPTY);
+        int[] sourceCells = cells(CellType.SOURCE);
+        int[] plantCells = cells(CellType.PLANT);
+
+        int[] pipeIndex = new int[N*N];
+        for (int p = 0; p < pipeCells.length; p++) {
+            pipeIndex[pipeCells[p]] = p;
+        }
+
+        boolean[] pipeSprinklerCandidates = new boolean[pipeCells.length];
+        for (int p = 0; p < pipeCells.length; p++) {
+            pipeSprinklerCandidates[p] = sprinklerCandidates[pipeCells[p]];
+        }
+
+        // create arcs
+        // pipe -> pipe, remembering the arc leaving each pipe in each direction
+        int[] pipeArcOffsets = new int[pipeCells.length + 1];
+        int[] pipeArcEnds = new int[4 * pipeCells.length];
+        int[] pipeArcDirections = new int[4 * pipeCells.length];
+        int[] directionArcs = new int[4 * pipeCells.length];
+        int pipeArcs = 0;
+        for (int p = 0; p < pipeCells.length; p++) {
+            pipeArcOffsets[p] = pipeArcs;
+            int i = pipeCells[p] / N;
+            int j = pipeCells[p] % N;
+            for (int d = 0; d < OFFSETS.length; d++) {
+                int[] n = OFFSETS[d];
+                if (isRegionType(i + n[0], j + n[1], CellType.EMPTY)) {
+                    directionArcs[4*p + d] = pipeArcs;
+                    pipeArcDirections[pipeArcs] = d;
+                    pipeArcEnds[pipeArcs++] = pipeIndex[(i + n[0])*N + j + n[1]];
+                }
+            }
+        }
+        pipeArcOffsets[pipeCells.length] = pipeArcs;
+
+        // the reverse arc leaves the end pipe in the opposite direction
+        int[] reverseArcs = new int[pipeArcs];
+        for (int a = 0; a < pipeArcs; a++) {
+            reverseArcs[a] = directionArcs[4*pipeArcEnds[a] + (pipeArcDirections[a] + 2) % 4];
+        }
+
+        // source -> pipe
+        int[] sourceArcOffsets = new int[sourceCells.length + 1];
+        int[] sourceArcPipes = new int[4 * sourceCells.length];
+        int sourceArcs = 0;
+        for (int s = 0; s < sourceCells.length; s++) {
+            sourceArcOffsets[s] = sourceArcs;
+            int i = sourceCells[s] / N;
+            int j = sourceCells[s] % N;
+            for (int[] n : OFFSETS) {
+                if (isRegionType(i + n[0], j + n[1], CellType.EMPTY)) {
+                    sourceArcPipes[sourceArcs++] = pipeIndex[(i + n[0])*N + j + n[1]];
+                }
+            }
+        }
+        sourceArcOffsets[sourceCells.length] = sourceArcs;
+
+        // pipe -> plant, visiting only the candidate cells within the spray radius of the plant
+        DiskStencil stencil = DiskStencil.of(input.Z());
+        int[] plantArcOffsets = new int[plantCells.length + 1];
+        int[] plantArcPipes = new int[stencil.size() * plantCells.length];
+        int plantArcs = 0;
+        for (int k = 0; k < plantCells.length; k++) {
+            plantArcOffsets[k] = plantArcs;
+            int i = plantCells[k] / N;
+            int j = plantCells[k] % N;
+            for (int d = 0; d < stencil.size(); d++) {
+                int i2 = i + stencil.di[d];
+                int j2 = j + stencil.dj[d];
+                if (isRegionType(i2, j2, CellType.EMPTY) && sprinklerCandidates[i2*N + j2]) {
+                    plantArcPipes[plantArcs++] = pipeIndex[i2*N + j2];
+                }
+            }
+        }
+        plantArcOffsets[plantCells.length] = plantArcs;
+
+        return new Network(N, pipeCells, sourceCells, plantCells, pipeSprinklerCandidates,
+                pipeArcOffsets, Arrays.copyOf(pipeArcEnds, pipeArcs), reverseArcs,
+                sourceArcOffsets, Arrays.copyOf(sourceArcPipes, sourceArcs),
+                plantArcOffsets, Arrays.copyOf(plantArcPipes, plantArcs));
+    }
+
+    private int[] cells(CellType cellType) {
+        int count = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (region[cell] && gridTypes[cell / N][cell % N] == cellType) {
+                count++;
+            }
+        }
+
+        int[] cells = new int[count];
+        int k = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (region[cell] && gridTypes[cell / N][cell % N] == cellType) {
+                cells[k++] = cell;
+            }
+        }
+        return cells;
+    }
+
+    private boolean isRegionType(int i, int j, CellType cellType) {
+        return 0 <= i && i < N && 0 <= j && j < N && region[i*N + j] && gridTypes[i][j] == cellType;
+    }
+
+    private static boolean[] allCells(Input input) {
+        boolean[] all = new boolean[input.N() * input.N()];
+        Arrays.fill(all, true);
+        return all;
+    }
+
+    private static boolean[] emptyCells(Input input) {
+        int N = input.N();
+        boolean[] empty = new boolean[N*N];
+        for (int cell = 0; cell < N*N; cell++) {
+            empty[cell] = input.cells()[cell / N][cell % N] == CellType.EMPTY;
+        }
+        return empty;
+    }
+}
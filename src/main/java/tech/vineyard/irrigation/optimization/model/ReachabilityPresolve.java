@@ -0,0 +1,185 @@
+package tech.vineyard.irrigation.optimization.model;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+
+import java.util.Arrays;
+
+/**
+ * Select the cells of the network, before building it.
+ * <p>
+ * Empty cells unreachable from the sources never hold a connected pipe, and a pipe there only adds connectors.
+ * When a connector costs no more than a pipe, the dead end pockets covering no plant are peeled too:
+ * a pocket hangs from a single cell, and its pipes save at most one connector of that cell.
+ * A peeled cell keeps at most one neighbour pipe, whose connector it still costs.
+ * Plants no remaining candidate covers are left out, staying dry.
+ */
+public class ReachabilityPresolve {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Input input;
+    private final int N;
+    private final CellType[][] cells;
+    private final boolean[] sprinklerCandidates;
+    private final boolean[] region;
+
+    private int removedCells;
+    private int removedPlants;
+
+    /**
+     * @param region cells to select from, null for the whole grid
+     */
+    public ReachabilityPresolve(Input input, boolean[] sprinklerCandidates, boolean[] region) {
+        this.input = input;
+        this.sprinklerCandidates = sprinklerCandidates;
+        N = input.N();
+        cells = input.cells();
+        if (region == null) {
+            region = new boolean[N*N];
+            Arrays.fill(region, true);
+        }
+        this.region = region;
+    }
+
+    /**
+     * @return whether each cell is kept in the network
+     */
+    public boolean[] cells() {
+        boolean[] kept = reachable();
+        if (input.C() <= input.P()) {
+            peelPockets(kept);
+        }
+        removePlants(kept);
+        return kept;
+    }
+
+    /**
+     * @return number of empty cells left out
+     */
+    public int removedCells() {
+        return removedCells;
+    }
+
+    /**
+     * @return number of plants left out
+     */
+    public int removedPlants() {
+        return removedPlants;
+    }
+
+    /**
+     * Breadth first search from the sources along the empty cells of the region.
+     */
+    private boolean[] reachable() {
+        boolean[] kept = new boolean[N*N];
+        int[] queue = new int[N*N];
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (region[cell] && type(cell) == CellType.SOURCE) {
+                kept[cell] = true;
+                queue[tail++] = cell;
+            } else if (region[cell] && type(cell) == CellType.PLANT) {
+                kept[cell] = true;
+            }
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int[] n : OFFSETS) {
+                int i = cell / N + n[0];
+                int j = cell % N + n[1];
+                if (valid(i, j) && region[i*N + j] && cells[i][j] == CellType.EMPTY && !kept[i*N + j]) {
+                    kept[i*N + j] = true;
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+
+        removedCells = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (region[cell] && type(cell) == CellType.EMPTY && !kept[cell]) {
+                removedCells++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Repeatedly remove the empty cells covering no plant with at most one kept neighbour, empty or source.
+     */
+    private void peelPockets(boolean[] kept) {
+        int[] degree = new int[N*N];
+        int[] queue = new int[N*N];
+        int tail = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (!isPipeCell(cell, kept)) {
+                continue;
+            }
+            for (int[] n : OFFSETS) {
+                int i = cell / N + n[0];
+                int j = cell % N + n[1];
+                if (valid(i, j) && (isPipeCell(i*N + j, kept) || kept[i*N + j] && cells[i][j] == CellType.SOURCE)) {
+                    degree[cell]++;
+                }
+            }
+            if (degree[cell] <= 1 && !sprinklerCandidates[cell]) {
+                queue[tail++] = cell;
+            }
+        }
+
+        int head = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            kept[cell] = false;
+            removedCells++;
+            for (int[] n : OFFSETS) {
+                int i = cell / N + n[0];
+                int j = cell % N + n[1];
+                if (valid(i, j) && isPipeCell(i*N + j, kept) && --degree[i*N + j] == 1 && !sprinklerCandidates[i*N + j]) {
+                    queue[tail++] = i*N + j;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the plants covered by no kept sprinkler candidate.
+     */
+    private void removePlants(boolean[] kept) {
+        DiskStencil stencil = DiskStencil.of(input.Z());
+        removedPlants = 0;
+        for (int cell = 0; cell < N*N; cell++) {
+            if (!kept[cell] || type(cell) != CellType.PLANT) {
+                continue;
+            }
+
+            boolean covered = false;
+            for (int d = 0; d < stencil.size() && !covered; d++) {
+                int i = cell / N + stencil.di[d];
+                int j = cell % N + stencil.dj[d];
+                covered = valid(i, j) && isPipeCell(i*N + j, kept) && sprinklerCandidates[i*N + j];
+            }
+            if (!covered) {
+                kept[cell] = false;
+                removedPlants++;
+            }
+        }
+    }
+
+    private boolean isPipeCell(int cell, boolean[] kept) {
+        return kept[cell] && type(cell) == CellType.EMPTY;
+    }
+
+    private CellType type(int cell) {
+        return cells[cell / N][cell % N];
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+}
@@ -0,0 +1,100 @@
+package tech.vineyard.irrigation.optimization.model;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split the grid into independent regions.
+ * <p>
+ * Pipes only connect adjacent empty and source cells, so plant walls split the grid into components.
+ * Components are merged when a plant can be covered by sprinkler candidates of both,
+ * each region sharing no pipe cell and no coverable plant with the others.
+ * Plants that no candidate covers are in no region.
+ */
+public class RegionDecomposition {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Input input;
+    private final int N;
+    private final CellType[][] cells;
+
+    /**
+     * cells allowed to hold a sprinkler, by cell id
+     */
+    private final boolean[] sprinklerCandidates;
+
+    public RegionDecomposition(Input input, boolean[] sprinklerCandidates) {
+        this.input = input;
+        this.sprinklerCandidates = sprinklerCandidates;
+        N = input.N();
+        cells = input.cells();
+    }
+
+    /**
+     * @return cells of each region, by cell id
+     */
+    public List<boolean[]> regions() {
+        UnionFind unionFind = new UnionFind(N*N);
+        boolean[] inRegion = new boolean[N*N];
+
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cells[i][j] == CellType.PLANT) {
+                    continue;
+                }
+                inRegion[i*N + j] = true;
+                for (int[] offset : OFFSETS) {
+                    int i2 = i + offset[0];
+                    int j2 = j + offset[1];
+                    if (valid(i2, j2) && cells[i2][j2] != CellType.PLANT) {
+                        unionFind.union(i*N + j, i2*N + j2);
+                    }
+                }
+            }
+        }
+
+        DiskStencil stencil = DiskStencil.of(input.Z());
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (cells[i][j] != CellType.PLANT) {
+                    continue;
+                }
+                for (int d = 0; d < stencil.size(); d++) {
+                    int i2 = i + stencil.di[d];
+                    int j2 = j + stencil.dj[d];
+                    if (valid(i2, j2) && sprinklerCandidates[i2*N + j2]) {
+                        inRegion[i*N + j] = true;
+                        unionFind.union(i*N + j, i2*N + j2);
+                    }
+                }
+            }
+        }
+
+        boolean[][] regionByRoot = new boolean[N*N][];
+        List<boolean[]> regions = new ArrayList<>();
+        for (int cell = 0; cell < N*N; cell++) {
+            if (!inRegion[cell]) {
+                continue;
+            }
+            int root = unionFind.find(cell);
+            if (regionByRoot[root] == null) {
+                regionByRoot[root] = new boolean[N*N];
+                regions.add(regionByRoot[root]);
+            }
+            regionByRoot[root][cell] = true;
+        }
+        return regions;
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+}
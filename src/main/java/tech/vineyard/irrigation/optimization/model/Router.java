@@ -0,0 +1,154 @@
+package tech.vineyard.irrigation.optimization.model;
+
+import tech.vineyard.irrigation.Input;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turn aware pipe routing over the network.
+ * <p>
+ * Connectors make a path cost more than its pipes: a turning pipe has two neighbour pipes, and each empty cell
+ * beside the path has one. A step into a pipe costs P plus a connector per empty neighbour beyond the two on the path,
+ * and a turn costs two connectors. The distance fields from all the sources and from each source are cached.
+ */
+public class Router {
+    private final Network network;
+    private final long[] stepCost;
+    private final long turnCost;
+
+    /**
+     * direction of each arc, as the index of its offset (up, right, down, left)
+     */
+    private final int[] pipeArcDirections;
+    private final int[] sourceArcDirections;
+
+    private DistanceField fromSources;
+    private final DistanceField[] fromSource;
+
+    public Router(Input input, Network network) {
+        this.network = network;
+        turnCost = 2L * input.C();
+
+        stepCost = new long[network.pipes()];
+        for (int p = 0; p < network.pipes(); p++) {
+            int sides = Math.max(0, network.pipeArcOffsets[p + 1] - network.pipeArcOffsets[p] - 2);
+            stepCost[p] = input.P() + (long) input.C() * sides;
+        }
+
+        pipeArcDirections = new int[network.pipeArcs()];
+        for (int a = 0; a < network.pipeArcs(); a++) {
+            pipeArcDirections[a] = direction(network.pipeCells[network.pipeArcStarts[a]], network.pipeCells[network.pipeArcEnds[a]]);
+        }
+        sourceArcDirections = new int[network.sourceArcs()];
+        for (int a = 0; a < network.sourceArcs(); a++) {
+            sourceArcDirections[a] = direction(network.sourceCells[network.sourceArcSources[a]], network.pipeCells[network.sourceArcPipes[a]]);
+        }
+
+        fromSource = new DistanceField[network.sources()];
+    }
+
+    /**
+     * @return empty distance field, to grow from custom starts
+     */
+    public DistanceField field() {
+        return new DistanceField(network, this);
+    }
+
+    /**
+     * @return cached distance field from all the sources, not to be extended
+     */
+    public DistanceField fromSources() {
+        if (fromSources == null) {
+            int[] sources = new int[network.sources()];
+            for (int s = 0; s < sources.length; s++) {
+                sources[s] = s;
+            }
+            fromSources = field();
+            fromSources.addSources(sources);
+        }
+        return fromSources;
+    }
+
+    /**
+     * @return cached distance field from a single source, not to be extended
+     */
+    public DistanceField fromSource(int source) {
+        if (fromSource[source] == null) {
+            fromSource[source] = field();
+            fromSource[source].addSources(new int[] { source });
+        }
+        return fromSource[source];
+    }
+
+    /**
+     * Grow a tree from the sources, connecting the closest target by its cheapest path at each step.
+     * The distances to the tree only decrease, so they are updated from the new pipes.
+     *
+     * @param targets pipes to connect
+     * @return new pipes of each step, from the connected target back to the tree, the target being first even when it was
+     * already on the tree; the unreachable targets are left out
+     */
+    public List<int[]> tree(int[] targets) {
+        int[] sources = new int[network.sources()];
+        for (int s = 0; s < sources.length; s++) {
+            sources[s] = s;
+        }
+        DistanceField field = field();
+        field.addSources(sources);
+
+        List<int[]> paths = new ArrayList<>();
+        boolean[] connected = new boolean[targets.length];
+        while (true) {
+            int best = -1;
+            for (int k = 0; k < targets.length; k++) {
+                if (!connected[k] && field.distance(targets[k]) < Long.MAX_VALUE
+                        && (best < 0 || field.distance(targets[k]) < field.distance(targets[best]))) {
+                    best = k;
+                }
+            }
+            if (best < 0) {
+                return paths;
+            }
+
+            int[] path = field.path(targets[best]);
+            if (path.length == 0) {
+                path = new int[] { targets[best] };
+            }
+            connected[best] = true;
+            field.addPipes(path);
+            paths.add(path);
+        }
+    }
+
+    long stepCost(int pipe) {
+        return stepCost[pipe];
+    }
+
+    long turnCost() {
+        return turnCost;
+    }
+
+    int pipeArcDirection(int pipeArc) {
+        return pipeArcDirections[pipeArc];
+    }
+
+    int sourceArcDirection(int sourceArc) {
+        return sourceArcDirections[sourceArc];
+    }
+
+    /**
+     * Direction of the move between adjacent cells: up, right, down or left.
+     */
+    private int direction(int from, int to) {
+        int di = network.row(to) - network.row(from);
+        int dj = network.column(to) - network.column(from);
+        if (di < 0) {
+            return 0;
+        }
+        if (dj > 0) {
+            return 1;
+        }
+        return di > 0 ? 2 : 3;
+    }
+}
@@ -0,0 +1,116 @@
+package tech.vineyard.irrigation.optimization.model;
+
+import tech.vineyard.irrigation.CellType;
+import tech.vineyard.irrigation.Input;
+
+import java.util.Arrays;
+
+/**
+ * Select the cells where a sprinkler can improve a solution, before building the network.
+ * <p>
+ * A cell covering no plant is never a candidate.
+ * Optionally, a cell covering a strict subset of the plants of an adjacent candidate is removed too.
+ */
+public class SprinklerPresolve {
+    private static final int[][] OFFSETS = new int[][] {
+            { -1, 0 },
+            { 0, 1 },
+            { 1, 0 },
+            { 0, -1 }
+    };
+
+    private final Input input;
+    private final int N;
+    private final CellType[][] cells;
+    private final boolean pruneDominated;
+
+    private int removed;
+
+    public SprinklerPresolve(Input input, boolean pruneDominated) {
+        this.input = input;
+        this.pruneDominated = pruneDominated;
+        N = input.N();
+        cells = input.cells();
+    }
+
+    /**
+     * @return whether each cell is a sprinkler candidate
+     */
+    public boolean[] candidates() {
+        // plants covered by each empty cell, in increasing cell order
+        int[][] coverage = new int[N*N][];
+        DiskStencil stencil = DiskStencil.of(input.Z());
+        int[] covered = new int[stencil.size()];
+        for (int cell = 0; cell < N*N; cell++) {
+            int i = cell / N;
+            int j = cell % N;
+            if (cells[i][j] != CellType.EMPTY) {
+                continue;
+            }
+
+            int plants = 0;
+            for (int d = 0; d < stencil.size(); d++) {
+                int i2 = i + stencil.di[d];
+                int j2 = j + stencil.dj[d];
+                if (valid(i2, j2) && cells[i2][j2] == CellType.PLANT) {
+                    covered[plants++] = i2*N + j2;
+                }
+            }
+            coverage[cell] = Arrays.copyOf(covered, plants);
+        }
+
+        removed = 0;
+        boolean[] candidates = new boolean[N*N];
+        for (int cell = 0; cell < N*N; cell++) {
+            if (coverage[cell] == null) {
+                continue;
+            }
+
+            candidates[cell] = coverage[cell].length > 0 && !(pruneDominated && dominated(cell, coverage));
+            if (!candidates[cell]) {
+                removed++;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return number of empty cells removed from the candidates
+     */
+    public int removed() {
+        return removed;
+    }
+
+    private boolean dominated(int cell, int[][] coverage) {
+        for (int[] n : OFFSETS) {
+            int i2 = cell / N + n[0];
+            int j2 = cell % N + n[1];
+            if (!valid(i2, j2)) {
+                continue;
+            }
+
+            int[] neighborPlants = coverage[i2*N + j2];
+            if (neighborPlants != null && neighborPlants.length > coverage[cell].length && containsAll(neighborPlants, coverage[cell])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inclusion of sorted arrays.
+     */
+    private static boolean containsAll(int[] superset, int[] subset) {
+        int k = 0;
+        for (int plant : superset) {
+            if (k < subset.length && subset[k] == plant) {
+                k++;
+            }
+        }
+        return k == subset.length;
+    }
+
+    private boolean valid(int i, int j) {
+        return 0 <= i && i < N && 0 <= j && j < N;
+    }
+}
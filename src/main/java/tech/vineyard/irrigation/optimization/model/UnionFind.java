@@ -0,0 +1,42 @@
+package tech.vineyard.irrigation.optimization.model;
+
+/**
+ * Disjoint sets of integers, with union by size and path halving.
+ */
+public class UnionFind {
+
+    private final int[] parent;
+    private final int[] size;
+
+    public UnionFind(int n) {
+        parent = new int[n];
+        size = new int[n];
+        for (int k = 0; k < n; k++) {
+            parent[k] = k;
+            size[k] = 1;
+        }
+    }
+
+    public int find(int k) {
+        while (parent[k] != k) {
+            parent[k] = parent[parent[k]];
+            k = parent[k];
+        }
+        return k;
+    }
+
+    public void union(int k, int l) {
+        int rootK = find(k);
+        int rootL = find(l);
+        if (rootK == rootL) {
+            return;
+        }
+        if (size[rootK] < size[rootL]) {
+            int root = rootK;
+            rootK = rootL;
+            rootL = root;
+        }
+        parent[rootL] = rootK;
+        size[rootK] += size[rootL];
+    }
+}
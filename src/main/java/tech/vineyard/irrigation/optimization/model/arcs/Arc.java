@@ -1,6 +0,0 @@
-package tech.vineyard.irrigation.optimization.model.arcs;
-
-import com.google.ortools.sat.IntVar;
-
-public abstract class Arc {
-}
@@ -1,9 +0,0 @@
-package tech.vineyard.irrigation.optimization.model.cells;
-
-import com.google.ortools.sat.BoolVar;
-
-public class Pipe extends Cell {
-    public Pipe(int i, int j) {
-        super(i, j);
-    }
-}
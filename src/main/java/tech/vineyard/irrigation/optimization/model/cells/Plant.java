@@ -1,7 +0,0 @@
-package tech.vineyard.irrigation.optimization.model.cells;
-
-public class Plant extends Cell {
-    public Plant(int i, int j) {
-        super(i, j);
-    }
-}
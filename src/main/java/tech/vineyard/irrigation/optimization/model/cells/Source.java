@@ -1,7 +0,0 @@
-package tech.vineyard.irrigation.optimization.model.cells;
-
-public class Source extends Cell {
-    public Source(int i, int j) {
-        super(i, j);
-    }
-}
@@ -0,0 +1,31 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AnswerFileTest {
+
+    @Test
+    public void failedWrite(@TempDir Path directory) throws IOException {
+        boolean[][] pipes = new boolean[][] { { false, true }, { false, false } };
+        boolean[][] sprinklers = new boolean[][] { { false, true }, { false, false } };
+        Output output = new Output(pipes, sprinklers, SolutionStatus.FEASIBLE, 5, 0);
+
+        // the improvement is skipped without stopping the search, the final write reports it
+        AnswerFile missing = new AnswerFile(directory.resolve("missing").resolve("1.out"));
+        missing.onSolution(output, 0);
+        IOException e = assertThrows(IOException.class, () -> missing.write(output));
+        assertEquals(1, e.getSuppressed().length);
+
+        AnswerFile answerFile = new AnswerFile(directory.resolve("1.out"));
+        answerFile.onSolution(output, 0);
+        assertEquals(3, Files.readAllLines(directory.resolve("1.out")).size());
+    }
+}
@@ -0,0 +1,43 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.CostScenario;
+import tech.vineyard.irrigation.optimization.CostSweep;
+import tech.vineyard.irrigation.optimization.CostTable;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CostSweepTest {
+
+    @Test
+    public void sameCostAsColdSolves() throws IOException {
+        int N = 8;
+        Input input = new InstanceGenerator(1).generate(N, 0.2);
+        List<CostScenario> scenarios = List.of(
+                new CostScenario(1, 1, 3),
+                new CostScenario(1, 2, 3),
+                new CostScenario(2, 2, 5),
+                new CostScenario(3, 1, 10));
+
+        CostTable costTable = new CostSweep(input, SolverConfig.DEFAULT, ModelConfig.DEFAULT, 2).costTable(scenarios);
+        List<Output> outputs = costTable.outputs();
+        assertEquals(scenarios, costTable.scenarios());
+        assertEquals(scenarios.size(), outputs.size());
+        for (int k = 0; k < scenarios.size(); k++) {
+            CostScenario scenario = scenarios.get(k);
+            Input costs = new Input(N, scenario.C(), scenario.P(), scenario.T(), input.Z(), input.cells());
+            Output cold = new Optimizer(costs).solution();
+
+            assertEquals(SolutionStatus.OPTIMAL, outputs.get(k).status());
+            assertEquals(cold.cost(), outputs.get(k).cost());
+            assertEquals(new CostEvaluator(costs).cost(outputs.get(k).pipes(), outputs.get(k).sprinklers()), outputs.get(k).cost());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.DecomposedOptimizer;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.model.RegionDecomposition;
+import tech.vineyard.irrigation.optimization.model.SprinklerPresolve;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DecomposedOptimizerTest {
+
+    @Test
+    public void plantWall() throws IOException {
+        // a wall of plants twice the spray radius wide splits the grid
+        Input input = wallInput(2);
+        assertEquals(2, regions(input));
+        assertSameCost(input);
+    }
+
+    @Test
+    public void coupledByPlants() throws IOException {
+        // the plants of a thinner wall can be covered from both sides
+        Input input = wallInput(1);
+        assertEquals(1, regions(input));
+        assertSameCost(input);
+    }
+
+    private Input wallInput(int wallWidth) {
+        int N = 8;
+        CellType[][] cellTypes = new CellType[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                boolean wall = 3 <= j && j < 3 + wallWidth;
+                cellTypes[i][j] = wall || (i + j) % 5 == 0 ? CellType.PLANT : CellType.EMPTY;
+            }
+        }
+        cellTypes[1][0] = CellType.SOURCE;
+        cellTypes[6][7] = CellType.SOURCE;
+        return new Input(N, 1, 1, 3, 1, cellTypes);
+    }
+
+    private int regions(Input input) {
+        return new RegionDecomposition(input, new SprinklerPresolve(input, false).candidates()).regions().size();
+    }
+
+    private void assertSameCost(Input input) throws IOException {
+        Output joint = new Optimizer(input).solution();
+        Output decomposed = new DecomposedOptimizer(input, SolverConfig.DEFAULT, ModelConfig.DEFAULT, 2).solution();
+
+        assertEquals(SolutionStatus.OPTIMAL, decomposed.status());
+        assertEquals(joint.cost(), decomposed.cost());
+        assertEquals(decomposed.cost(), decomposed.bound());
+        assertEquals(new CostEvaluator(input).cost(decomposed.pipes(), decomposed.sprinklers()), decomposed.cost());
+    }
+}
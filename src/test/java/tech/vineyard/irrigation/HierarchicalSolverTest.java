@@ -0,0 +1,41 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.HierarchicalSolver;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.model.DiskStencil;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HierarchicalSolverTest {
+
+    @Test
+    public void solution() throws IOException {
+        int N = 30;
+        Input input = new InstanceGenerator(1).generate(N, 0.2);
+        Output output = new HierarchicalSolver(input, SolverConfig.DEFAULT.withTimeLimit(1), ModelConfig.DEFAULT, 10).solution();
+        assertEquals(new CostEvaluator(input).cost(output.pipes(), output.sprinklers()), output.cost());
+
+        // the generator removes the plants no sprinkler can reach, so every plant is irrigated
+        DiskStencil stencil = DiskStencil.of(input.Z());
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (input.cells()[i][j] != CellType.PLANT) {
+                    continue;
+                }
+                boolean wet = false;
+                for (int d = 0; d < stencil.size(); d++) {
+                    int i2 = i + stencil.di[d];
+                    int j2 = j + stencil.dj[d];
+                    wet |= 0 <= i2 && i2 < N && 0 <= j2 && j2 < N && output.sprinklers()[i2][j2];
+                }
+                assertTrue(wet);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+import tech.vineyard.irrigation.optimization.lns.LargeNeighbourhoodSearch;
+import tech.vineyard.irrigation.optimization.lns.LnsReport;
+import tech.vineyard.irrigation.optimization.lns.Neighbourhood;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LargeNeighbourhoodSearchTest {
+
+    @Test
+    public void improves() {
+        Input input = new InstanceGenerator(1).generate(16, 0.2);
+        Output initial = new SteinerHeuristic(input).solution();
+
+        List<Output> incumbents = new ArrayList<>();
+        LargeNeighbourhoodSearch search = new LargeNeighbourhoodSearch(input, SolverConfig.DEFAULT.withTimeLimit(6),
+                ModelConfig.DEFAULT, 2, 1);
+        search.addListener((output, wallTime) -> incumbents.add(output));
+        Output output = search.solution(initial);
+
+        assertEquals(new CostEvaluator(input).cost(output.pipes(), output.sprinklers()), output.cost());
+        assertTrue(output.cost() <= initial.cost());
+        assertEquals(output.cost(), incumbents.get(incumbents.size() - 1).cost());
+        for (int k = 1; k < incumbents.size(); k++) {
+            assertTrue(incumbents.get(k).cost() < incumbents.get(k - 1).cost());
+        }
+
+        LnsReport report = search.report();
+        long costDecrease = 0;
+        for (Neighbourhood neighbourhood : Neighbourhood.values()) {
+            costDecrease += report.statistics(neighbourhood).costDecrease;
+        }
+        assertEquals(initial.cost() - output.cost(), costDecrease);
+    }
+}
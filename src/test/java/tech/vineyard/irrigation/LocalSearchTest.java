@@ -0,0 +1,25 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.heuristic.LocalSearch;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalSearchTest {
+
+    @Test
+    public void improvesWarmStart() {
+        for (int seed = 1; seed <= 5; seed++) {
+            Input input = new InstanceGenerator(seed).generate(20, 0.2);
+            CostEvaluator costEvaluator = new CostEvaluator(input);
+
+            Output heuristic = new SteinerHeuristic(input).solution();
+            Output output = new LocalSearch(input, 0.2, seed).solution();
+            assertEquals(costEvaluator.cost(output.pipes(), output.sprinklers()), output.cost());
+            assertTrue(output.cost() <= heuristic.cost());
+        }
+    }
+}
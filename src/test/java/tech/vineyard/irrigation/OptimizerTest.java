@@ -1,26 +1,274 @@
 package tech.vineyard.irrigation;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.vineyard.irrigation.optimization.Connectivity;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.LinearRelaxation;
+import tech.vineyard.irrigation.optimization.ModelCache;
+import tech.vineyard.irrigation.optimization.ModelConfig;
 import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolveReport;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+import tech.vineyard.irrigation.optimization.model.Network;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class OptimizerTest {
 
     @Test
     public void simple() throws IOException {
+        Optimizer optimizer = new Optimizer(simpleInput());
+        Output output = optimizer.solution();
+        boolean[][] p = output.pipes();
+        assertTrue(p[0][1] ^ p[1][0]);
+        assertTrue(p[0][2] ^ p[2][0]);
+    }
+
+    @Test
+    public void timeLimit() throws IOException {
+        Optimizer optimizer = new Optimizer(simpleInput(), 10);
+        Output output = optimizer.solution();
+        assertEquals(SolutionStatus.OPTIMAL, output.status());
+        assertEquals(output.cost(), output.bound());
+        assertEquals(0, output.gap());
+    }
+
+    @Test
+    public void timeLimitExpired() throws IOException {
+        Input input = new InstanceGenerator(1).generate(30, 0.2);
+        Output output = new Optimizer(input, 0.05).solution();
+        assertEquals(SolutionStatus.FEASIBLE, output.status());
+        assertEquals(new CostEvaluator(input).cost(output.pipes(), output.sprinklers()), output.cost());
+        assertTrue(output.bound() <= output.cost());
+        assertTrue(output.gap() > 0);
+    }
+
+    @Test
+    public void incumbents() throws IOException {
+        List<Output> incumbents = new ArrayList<>();
+        Optimizer optimizer = new Optimizer(simpleInput());
+        optimizer.addListener((output, wallTime) -> incumbents.add(output));
+        Output output = optimizer.solution();
+
+        assertFalse(incumbents.isEmpty());
+        assertEquals(output.cost(), incumbents.get(incumbents.size() - 1).cost());
+        for (int k = 1; k < incumbents.size(); k++) {
+            assertTrue(incumbents.get(k).cost() < incumbents.get(k - 1).cost());
+        }
+    }
+
+    @Test
+    public void report() throws IOException {
+        Optimizer optimizer = new Optimizer(simpleInput(), SolverConfig.DEFAULT.withWorkers(2));
+        optimizer.setReportImprovements(true);
+        Output output = optimizer.solution();
+
+        SolveReport report = optimizer.report();
+        assertFalse(report.improvements().isEmpty());
+        assertEquals(output.cost(), (long) report.improvements().get(report.improvements().size() - 1).cost);
+        assertTrue(report.wallTime() > 0);
+    }
+
+    @Test
+    @Tag("slow")
+    public void dominatedSprinklers() throws IOException {
+        for (int seed = 1; seed <= 3; seed++) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            Output exact = new Optimizer(input).solution();
+
+            ModelConfig modelConfig = ModelConfig.DEFAULT.withPruneDominatedSprinklers(true);
+            Output pruned = new Optimizer(input, SolverConfig.DEFAULT, modelConfig).solution();
+            assertEquals(new CostEvaluator(input).cost(pruned.pipes(), pruned.sprinklers()), pruned.cost());
+            assertTrue(exact.cost() <= pruned.cost());
+        }
+    }
+
+    @Test
+    public void namedVariables() throws IOException {
+        Input input = new InstanceGenerator(1).generate(6, 0.2);
+        Output lean = new Optimizer(input).solution();
+
+        Optimizer optimizer = new Optimizer(input, SolverConfig.DEFAULT, ModelConfig.DEFAULT.withNamedVariables(true));
+        Output named = optimizer.solution();
+        assertEquals(lean.cost(), named.cost());
+        assertEquals("alwaysFalse", optimizer.model().model().getVariables(0).getName());
+    }
+
+    @Test
+    @Tag("slow")
+    public void compactFlow() throws IOException {
+        for (int seed = 1; seed <= 3; seed++) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            Output arc = new Optimizer(input).solution();
+
+            Output compact = new Optimizer(input, SolverConfig.DEFAULT, ModelConfig.DEFAULT.withCompactFlow(true)).solution();
+            assertEquals(SolutionStatus.OPTIMAL, compact.status());
+            assertEquals(arc.cost(), compact.cost());
+        }
+    }
+
+    @Test
+    public void arborescence() throws IOException {
+        ModelConfig modelConfig = ModelConfig.DEFAULT.withConnectivity(Connectivity.ARBORESCENCE);
+        Output simple = new Optimizer(simpleInput(), SolverConfig.DEFAULT, modelConfig).solution();
+        assertTrue(simple.pipes()[0][1] ^ simple.pipes()[1][0]);
+    }
+
+    @Test
+    @Tag("slow")
+    public void arborescenceSeeds() throws IOException {
+        ModelConfig modelConfig = ModelConfig.DEFAULT.withConnectivity(Connectivity.ARBORESCENCE);
+        for (int seed = 1; seed <= 3; seed++) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            Output flow = new Optimizer(input).solution();
+
+            Output arborescence = new Optimizer(input, SolverConfig.DEFAULT, modelConfig).solution();
+            assertEquals(SolutionStatus.OPTIMAL, arborescence.status());
+            assertEquals(flow.cost(), arborescence.cost());
+            assertEquals(new CostEvaluator(input).cost(arborescence.pipes(), arborescence.sprinklers()), arborescence.cost());
+        }
+    }
+
+    @Test
+    @Tag("slow")
+    public void lazyConnectivity() throws IOException {
+        ModelConfig modelConfig = ModelConfig.DEFAULT.withConnectivity(Connectivity.LAZY);
+        for (int seed = 1; seed <= 3; seed++) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            Output flow = new Optimizer(input).solution();
+
+            Output lazy = new Optimizer(input, SolverConfig.DEFAULT, modelConfig).solution();
+            assertEquals(SolutionStatus.OPTIMAL, lazy.status());
+            assertEquals(flow.cost(), lazy.cost());
+            assertEquals(new CostEvaluator(input).cost(lazy.pipes(), lazy.sprinklers()), lazy.cost());
+        }
+    }
+
+    @Test
+    @Tag("slow")
+    public void relaxationBound() throws IOException {
+        for (int seed = 1; seed <= 3; seed++) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            Network network = new NetworkBuilder(input).build();
+            long bound = new LinearRelaxation(input, network).bound();
+
+            Output output = new Optimizer(input).solution();
+            assertEquals(SolutionStatus.OPTIMAL, output.status());
+            assertTrue(0 < bound && bound <= output.cost());
+
+            Output unbounded = new Optimizer(input, SolverConfig.DEFAULT, ModelConfig.DEFAULT.withRelaxationBound(false)).solution();
+            assertEquals(unbounded.cost(), output.cost());
+        }
+    }
+
+    @Test
+    @Tag("slow")
+    public void reachabilityPresolve() throws IOException {
+        for (int seed = 2; seed <= 3; seed++) {
+            // connectors cheaper, then dearer than pipes
+            for (int[] costs : new int[][] { { 5, 20 }, { 20, 5 } }) {
+                Input input = new InstanceGenerator(seed).generate(8, 2, costs[0], costs[1], 50, 1, 0.4);
+                Optimizer presolved = new Optimizer(input);
+                Output output = presolved.solution();
+                assertEquals(new CostEvaluator(input).cost(output.pipes(), output.sprinklers()), output.cost());
+
+                Optimizer full = new Optimizer(input, SolverConfig.DEFAULT, ModelConfig.DEFAULT.withReachabilityPresolve(false));
+                assertEquals(full.solution().cost(), output.cost());
+                assertTrue(presolved.model().model().getVariablesCount() <= full.model().model().getVariablesCount());
+            }
+        }
+    }
+
+    @Test
+    @Tag("slow")
+    public void setCover() throws IOException {
+        ModelConfig setCover = ModelConfig.DEFAULT.withSetCover(true);
+        for (int seed : new int[] { 1, 2, 4 }) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            Output output = new Optimizer(input).solution();
+            Output covered = new Optimizer(input, SolverConfig.DEFAULT, setCover).solution();
+            assertEquals(SolutionStatus.OPTIMAL, covered.status());
+            assertEquals(output.cost(), covered.cost());
+            assertEquals(new CostEvaluator(input).cost(covered.pipes(), covered.sprinklers()), covered.cost());
+
+            Output broken = new Optimizer(input, SolverConfig.DEFAULT, setCover.withSymmetryBreaking(true).withRedundantConstraints(true)).solution();
+            assertEquals(output.cost(), broken.cost());
+        }
+    }
+
+    @Test
+    @Tag("slow")
+    public void symmetryBreaking() throws IOException {
+        ModelConfig modelConfig = ModelConfig.DEFAULT.withRedundantConstraints(true).withSymmetryBreaking(true);
+        for (int seed : new int[] { 1, 2, 4 }) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            Output output = new Optimizer(input).solution();
+            Output broken = new Optimizer(input, SolverConfig.DEFAULT, modelConfig).solution();
+            assertEquals(SolutionStatus.OPTIMAL, broken.status());
+            assertEquals(output.cost(), broken.cost());
+        }
+    }
+
+    @Test
+    public void modelCache(@TempDir Path directory) throws IOException {
+        Input input = new InstanceGenerator(1).generate(8, 0.2);
+        Optimizer built = new Optimizer(input);
+        built.setModelCache(new ModelCache(directory, Long.MAX_VALUE));
+        Output output = built.solution();
+        assertEquals(1, models(directory).size());
+        Path model = models(directory).get(0);
+        long size = Files.size(model);
+
+        Optimizer loaded = new Optimizer(input, SolverConfig.DEFAULT.withWorkers(2));
+        loaded.setModelCache(new ModelCache(directory, size));
+        Output cached = loaded.solution();
+        assertEquals(SolutionStatus.OPTIMAL, cached.status());
+        assertEquals(output.cost(), cached.cost());
+        assertEquals(new CostEvaluator(input).cost(cached.pipes(), cached.sprinklers()), cached.cost());
+
+        // a warm started solve bypasses the cache
+        Input warmInput = new InstanceGenerator(2).generate(8, 0.2);
+        Optimizer warm = new Optimizer(warmInput);
+        warm.setModelCache(new ModelCache(directory, size));
+        warm.setWarmStart(new SteinerHeuristic(warmInput).solution());
+        warm.solution();
+        assertEquals(List.of(model), models(directory));
+
+        // the least recently used model is evicted
+        Optimizer other = new Optimizer(new InstanceGenerator(2).generate(8, 0.2));
+        other.setModelCache(new ModelCache(directory, size));
+        other.solution();
+        assertEquals(1, models(directory).size());
+        assertNotEquals(model, models(directory).get(0));
+    }
+
+    private List<Path> models(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private Input simpleInput() {
         CellType[][] cellTypes = new CellType[][] {
             { CellType.SOURCE, CellType.EMPTY, CellType.EMPTY },
             { CellType.EMPTY, CellType.EMPTY, CellType.EMPTY },
             { CellType.EMPTY, CellType.EMPTY, CellType.PLANT },
         };
-        Input input = new Input(3, 1, 1, 1, 1, cellTypes);
-        Optimizer optimizer = new Optimizer(input);
-        Output output = optimizer.solution();
-        boolean[][] p = output.pipes();
-        assertTrue(p[0][1] ^ p[1][0]);
-        assertTrue(p[0][2] ^ p[2][0]);
+        return new Input(3, 1, 1, 1, 1, cellTypes);
     }
 }
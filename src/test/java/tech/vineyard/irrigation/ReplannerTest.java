@@ -0,0 +1,85 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.Replanner;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplannerTest {
+
+    @Test
+    public void replan() throws IOException {
+        Input input = new InstanceGenerator(1).generate(10, 0.3);
+        Replanner replanner = new Replanner(input, SolverConfig.DEFAULT.withTimeLimit(10), ModelConfig.DEFAULT);
+        Output output = replanner.solution();
+
+        // plant on a pipe, breaking the network
+        int[] pipe = find(input, output, true);
+        Input edited = edit(input, pipe[0], pipe[1], CellType.PLANT);
+        output = replanner.replan(edited);
+        assertEquals(new CostEvaluator(edited).cost(output.pipes(), output.sprinklers()), output.cost());
+        assertFalse(output.pipes()[pipe[0]][pipe[1]]);
+
+        // plant on a cell without pipe
+        int[] empty = find(edited, output, false);
+        edited = edit(edited, empty[0], empty[1], CellType.PLANT);
+        output = replanner.replan(edited);
+        assertEquals(new CostEvaluator(edited).cost(output.pipes(), output.sprinklers()), output.cost());
+    }
+
+    @Test
+    public void replanCutTrunk() throws IOException {
+        int N = 10;
+        CellType[][] cells = new CellType[N][N];
+        for (CellType[] row : cells) {
+            Arrays.fill(row, CellType.EMPTY);
+        }
+        cells[0][0] = CellType.SOURCE;
+        cells[9][9] = CellType.PLANT;
+        cells[9][7] = CellType.PLANT;
+        cells[7][9] = CellType.PLANT;
+        Input input = new Input(N, 1, 1, 30, 1, cells);
+        // a single worker under a deterministic budget, so that the costs do not depend on the machine load
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withWorkers(1).withDeterministicTimeLimit(0.5);
+        Replanner replanner = new Replanner(input, solverConfig, ModelConfig.DEFAULT);
+        Output output = replanner.solution();
+
+        // plant on the trunk next to the source, cutting every sprinkler off
+        int[] trunk = output.pipes()[0][1] ? new int[] { 0, 1 } : new int[] { 1, 0 };
+        Input edited = edit(input, trunk[0], trunk[1], CellType.PLANT);
+        Output replanned = replanner.replan(edited);
+        Output cold = new Optimizer(edited, solverConfig, ModelConfig.DEFAULT).solution();
+        boolean[][] wet = new CostEvaluator(edited).wet(replanned.pipes(), replanned.sprinklers());
+        assertTrue(wet[9][9] && wet[9][7] && wet[7][9]);
+        assertTrue(replanned.cost() <= cold.cost(), replanned.cost() + " > " + cold.cost());
+    }
+
+    private static int[] find(Input input, Output output, boolean pipe) {
+        for (int i = 0; i < input.N(); i++) {
+            for (int j = 0; j < input.N(); j++) {
+                if (input.cells()[i][j] == CellType.EMPTY && output.pipes()[i][j] == pipe) {
+                    return new int[] { i, j };
+                }
+            }
+        }
+        throw new IllegalStateException("No such cell");
+    }
+
+    private static Input edit(Input input, int i, int j, CellType cellType) {
+        CellType[][] cells = new CellType[input.N()][];
+        for (int k = 0; k < input.N(); k++) {
+            cells[k] = input.cells()[k].clone();
+        }
+        cells[i][j] = cellType;
+        return new Input(input.N(), input.C(), input.P(), input.T(), input.Z(), cells);
+    }
+}
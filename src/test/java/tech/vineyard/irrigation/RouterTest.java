@@ -0,0 +1,49 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.model.DistanceField;
+import tech.vineyard.irrigation.optimization.model.Network;
+import tech.vineyard.irrigation.optimization.model.NetworkBuilder;
+import tech.vineyard.irrigation.optimization.model.Router;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RouterTest {
+
+    @Test
+    public void straightPath() {
+        Input input = input();
+        Network network = new NetworkBuilder(input).build();
+        DistanceField field = new Router(input, network).field();
+        field.addSources(new int[] { network.sourceIndex(network.cell(2, 0)) });
+
+        int target = network.pipeIndex(network.cell(2, 4));
+        // P per pipe, plus a connector per side neighbour: 2 + 3 + 3 + 2
+        assertEquals(10, field.distance(target));
+
+        int[] path = field.path(target);
+        int[] cells = new int[path.length];
+        for (int k = 0; k < path.length; k++) {
+            cells[k] = network.pipeCells[path[k]];
+        }
+        assertArrayEquals(new int[] { network.cell(2, 4), network.cell(2, 3), network.cell(2, 2), network.cell(2, 1) }, cells);
+
+        field.addPipes(path);
+        for (int pipe : path) {
+            assertEquals(0, field.distance(pipe));
+        }
+        assertEquals(0, field.path(target).length);
+    }
+
+    private static Input input() {
+        CellType[][] cellTypes = new CellType[5][5];
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                cellTypes[i][j] = CellType.EMPTY;
+            }
+        }
+        cellTypes[2][0] = CellType.SOURCE;
+        return new Input(5, 1, 1, 1, 1, cellTypes);
+    }
+}
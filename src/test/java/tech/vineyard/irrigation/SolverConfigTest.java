@@ -0,0 +1,16 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SolverConfigTest {
+
+    @Test
+    public void string() {
+        SolverConfig solverConfig = SolverConfig.DEFAULT.withWorkers(4).withTimeLimit(10).withDeterministicTimeLimit(5).withRelativeGapLimit(0.05);
+        assertEquals("workers=4 seed=1 search=AUTOMATIC_SEARCH linearization=1 timeLimit=10.0 deterministicTimeLimit=5.0 relativeGapLimit=0.050",
+                solverConfig.toString());
+    }
+}
@@ -0,0 +1,32 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.heuristic.SteinerHeuristic;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SteinerHeuristicTest {
+
+    @Test
+    @Tag("slow")
+    public void warmStart() throws IOException {
+        for (int seed = 1; seed <= 5; seed++) {
+            Input input = new InstanceGenerator(seed).generate(8, 0.2);
+            CostEvaluator costEvaluator = new CostEvaluator(input);
+
+            Output heuristic = new SteinerHeuristic(input).solution();
+            assertEquals(costEvaluator.cost(heuristic.pipes(), heuristic.sprinklers()), heuristic.cost());
+
+            Output output = new Optimizer(input).solution();
+            assertEquals(SolutionStatus.OPTIMAL, output.status());
+            assertEquals(costEvaluator.cost(output.pipes(), output.sprinklers()), output.cost());
+            assertTrue(output.cost() <= heuristic.cost());
+        }
+    }
+}
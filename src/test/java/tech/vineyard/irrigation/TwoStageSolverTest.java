@@ -0,0 +1,40 @@
+package tech.vineyard.irrigation;
+
+import org.junit.jupiter.api.Test;
+import tech.vineyard.irrigation.optimization.CostEvaluator;
+import tech.vineyard.irrigation.optimization.ModelConfig;
+import tech.vineyard.irrigation.optimization.Optimizer;
+import tech.vineyard.irrigation.optimization.SolverConfig;
+import tech.vineyard.irrigation.optimization.TwoStageSolver;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TwoStageSolverTest {
+
+    @Test
+    public void solution() {
+        for (int seed = 1; seed <= 3; seed++) {
+            Input input = new InstanceGenerator(seed).generate(20, 0.2);
+            Output output = new TwoStageSolver(input, SolverConfig.DEFAULT.withTimeLimit(1), ModelConfig.DEFAULT).solution();
+            assertEquals(new CostEvaluator(input).cost(output.pipes(), output.sprinklers()), output.cost());
+        }
+    }
+
+    @Test
+    public void warmStart() throws IOException {
+        Input input = new InstanceGenerator(1).generate(8, 0.2);
+        Output expected = new Optimizer(input).solution();
+
+        Output twoStage = new TwoStageSolver(input, SolverConfig.DEFAULT.withTimeLimit(1), ModelConfig.DEFAULT).solution();
+        assertTrue(expected.cost() <= twoStage.cost());
+
+        Optimizer optimizer = new Optimizer(input);
+        optimizer.setWarmStart(twoStage);
+        Output output = optimizer.solution();
+        assertEquals(SolutionStatus.OPTIMAL, output.status());
+        assertEquals(expected.cost(), output.cost());
+    }
+}